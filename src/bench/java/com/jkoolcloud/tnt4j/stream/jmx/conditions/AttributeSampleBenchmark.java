@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.conditions;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.jkoolcloud.tnt4j.utils.Utils;
+
+/**
+ * <p>
+ * JMH benchmark measuring per attribute cost and allocations of obtaining {@link AttributeSample} instances for all
+ * attributes of single MBean. Benchmark {@code newAttributeSample} allocates sample per attribute and takes wall clock
+ * timestamp per attribute, the way sampler did before {@link SampleCursor} was introduced. Benchmark
+ * {@code sampleCursor} reuses pooled samples sharing single cycle timestamp. Sampled values are preallocated, so
+ * {@code gc.alloc.rate.norm} reported by {@code -prof gc} shows allocations made by sampling API only.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttributeSampleBenchmark {
+	private static final int ATTRIBUTES = 16;
+
+	MBeanServer server;
+	ObjectName name;
+	MBeanAttributeInfo[] attrs;
+	Object[] values;
+	SampleCursor cursor;
+	long cycle = 0;
+
+	@Setup
+	public void setup() throws Exception {
+		server = ManagementFactory.getPlatformMBeanServer();
+		name = new ObjectName(ManagementFactory.RUNTIME_MXBEAN_NAME);
+		MBeanAttributeInfo[] mAttrs = server.getMBeanInfo(name).getAttributes();
+		attrs = new MBeanAttributeInfo[ATTRIBUTES];
+		values = new Object[ATTRIBUTES];
+		for (int i = 0; i < ATTRIBUTES; i++) {
+			attrs[i] = mAttrs[i % mAttrs.length];
+			values[i] = Long.valueOf(1000L + i);
+		}
+		cursor = new SampleCursor();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ATTRIBUTES)
+	public long newAttributeSample() {
+		long sum = 0;
+		for (int i = 0; i < ATTRIBUTES; i++) {
+			AttributeSample sample = AttributeSample.newAttributeSample(null, null, server, name, attrs[i]);
+			sample.sample(values[i]);
+			sum += sample.getTimeStampUsec();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ATTRIBUTES)
+	public long sampleCursor() {
+		long sum = 0;
+		cursor.begin(cycle++, Utils.currentTimeUsec(), System.nanoTime());
+		for (int i = 0; i < ATTRIBUTES; i++) {
+			AttributeSample sample = cursor.rewind().next(null, null, server, name, attrs[i]);
+			sample.sample(values[i]);
+			sum += sample.getTimeStampUsec();
+		}
+		cursor.rewind();
+		return sum;
+	}
+}
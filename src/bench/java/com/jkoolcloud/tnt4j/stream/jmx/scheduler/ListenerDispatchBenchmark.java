@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.jkoolcloud.tnt4j.core.Activity;
+import com.jkoolcloud.tnt4j.stream.jmx.conditions.AttributeSample;
+import com.jkoolcloud.tnt4j.stream.jmx.core.SampleContext;
+import com.jkoolcloud.tnt4j.stream.jmx.core.SampleListener;
+import com.jkoolcloud.tnt4j.stream.jmx.core.UnsupportedAttributeException;
+
+/**
+ * <p>
+ * JMH benchmark measuring per attribute cost of sample listeners dispatch. Benchmark {@code synchronizedList} runs
+ * listeners the way {@link SampleHandlerImpl} did before dispatching from copy-on-write array: entering listeners list
+ * monitor and iterating list. Benchmark {@code copyOnWriteArray} runs listeners the way {@link SampleHandlerImpl} does
+ * now: iterating volatile array reference. {@code *Contended} variants run the same dispatch from several threads
+ * sharing single listener chain, like parallel sampling workers do.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenerDispatchBenchmark {
+	@Param({ "1", "4" })
+	int listenerCount;
+
+	final List<SampleListener> listenerList = new ArrayList<SampleListener>(5);
+	volatile SampleListener[] listeners = new SampleListener[0];
+	AttributeSample sample;
+
+	@Setup
+	public void setup() throws Exception {
+		for (int i = 0; i < listenerCount; i++) {
+			listenerList.add(new NoopListener());
+		}
+		listeners = listenerList.toArray(new SampleListener[listenerList.size()]);
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(ManagementFactory.RUNTIME_MXBEAN_NAME);
+		MBeanAttributeInfo ainfo = server.getMBeanInfo(name).getAttributes()[0];
+		sample = AttributeSample.newAttributeSample(null, null, server, name, ainfo);
+	}
+
+	@Benchmark
+	public boolean synchronizedList() throws UnsupportedAttributeException {
+		synchronized (listenerList) {
+			for (SampleListener lst : listenerList) {
+				lst.pre(null, sample);
+			}
+		}
+		synchronized (listenerList) {
+			for (SampleListener lst : listenerList) {
+				lst.post(null, sample);
+			}
+		}
+		return !sample.excludeNext();
+	}
+
+	@Benchmark
+	public boolean copyOnWriteArray() throws UnsupportedAttributeException {
+		for (SampleListener lst : listeners) {
+			lst.pre(null, sample);
+		}
+		for (SampleListener lst : listeners) {
+			lst.post(null, sample);
+		}
+		return !sample.excludeNext();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public boolean synchronizedListContended() throws UnsupportedAttributeException {
+		return synchronizedList();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public boolean copyOnWriteArrayContended() throws UnsupportedAttributeException {
+		return copyOnWriteArray();
+	}
+
+	static class NoopListener implements SampleListener {
+		@Override
+		public void register(SampleContext context, ObjectName oname) {
+		}
+
+		@Override
+		public void unregister(SampleContext context, ObjectName oname) {
+		}
+
+		@Override
+		public void pre(SampleContext context, AttributeSample sample) {
+			if (sample.getAttributeInfo() == null) {
+				sample.excludeNext(true);
+			}
+		}
+
+		@Override
+		public void post(SampleContext context, AttributeSample sample) throws UnsupportedAttributeException {
+		}
+
+		@Override
+		public void error(SampleContext context, AttributeSample sample) {
+		}
+
+		@Override
+		public void error(SampleContext context, Throwable ex) {
+		}
+
+		@Override
+		public void pre(SampleContext context, Activity activity) {
+		}
+
+		@Override
+		public void post(SampleContext context, Activity activity) {
+		}
+
+		@Override
+		public void getStats(SampleContext context, Map<String, Object> stats) {
+		}
+	}
+}
@@ -17,15 +17,11 @@ package com.jkoolcloud.tnt4j.stream.jmx;
 
 import java.io.IOException;
 import java.io.PrintStream;
-import java.util.Collection;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
+import javax.management.InstanceNotFoundException;
 import javax.management.MBeanAttributeInfo;
 import javax.management.ObjectName;
-import javax.management.openmbean.CompositeData;
-import javax.management.openmbean.TabularData;
 
 import com.jkoolcloud.tnt4j.core.Activity;
 import com.jkoolcloud.tnt4j.core.PropertySnapshot;
@@ -36,7 +32,9 @@ import com.jkoolcloud.tnt4j.stream.jmx.core.UnsupportedAttributeException;
 
 /**
  * <p>
- * This class provide a default implementation of a {@link SampleListener}
+ * This class provide a default implementation of a {@link SampleListener}. Listener is thread safe: attribute
+ * exclusions are kept by thread safe {@link ExclusionStore}, so attribute sample callbacks may be invoked concurrently
+ * by parallel sampling worker threads.
  * </p>
  *
  * @version $Revision: 1 $
@@ -46,44 +44,89 @@ import com.jkoolcloud.tnt4j.stream.jmx.core.UnsupportedAttributeException;
 public class DefaultSampleListener implements SampleListener {
 	public static String STAT_TRACE_MODE = "listener.trace.mode";
 	public static String STAT_EXCLUDE_SET_COUNT = "listener.exclude.set.count";
+	public static String STAT_EXCLUDE_HIT_COUNT = "listener.exclude.hit.count";
+	public static String STAT_EXCLUDE_MISS_COUNT = "listener.exclude.miss.count";
+	public static String STAT_FLATTEN_PLAN_COUNT = "listener.flatten.plan.count";
 
 	boolean trace = false;
 	PrintStream out;
 
-	HashSet<MBeanAttributeInfo> excAttrs = new HashSet<MBeanAttributeInfo>(89);
+	ExclusionStore excAttrs;
+	final ValueFlattener flattener = new ValueFlattener();
 
 	/**
-	 * Create an instance of {@code DefaultSampleListener} with a a given print stream and trace mode
+	 * Create an instance of {@code DefaultSampleListener} with a a given print stream and trace mode. Listener uses
+	 * default exclusions store.
 	 *
 	 * @param pStream print stream instance for tracing
 	 * @param trace mode
+	 *
+	 * @see ExclusionStore#getDefault()
 	 */
 	public DefaultSampleListener(PrintStream pStream, boolean trace) {
+		this(pStream, trace, ExclusionStore.getDefault());
+	}
+
+	/**
+	 * Create an instance of {@code DefaultSampleListener} with a a given print stream, trace mode and attribute
+	 * exclusions store
+	 *
+	 * @param pStream print stream instance for tracing
+	 * @param trace mode
+	 * @param excStore store of MBean attributes excluded from sampling
+	 */
+	public DefaultSampleListener(PrintStream pStream, boolean trace, ExclusionStore excStore) {
 		this.trace = trace;
 		this.out = pStream == null ? System.out : pStream;
+		this.excAttrs = excStore;
 	}
 
 	/**
 	 * Determine if a given attribute to be excluded from sampling.
 	 *
+	 * @param name MBean object name
 	 * @param attr MBean attribute info
 	 * @return true when attribute should be excluded, false otherwise
 	 */
-	protected boolean isExcluded(MBeanAttributeInfo attr) {
-		return excAttrs.contains(attr);
+	protected boolean isExcluded(ObjectName name, MBeanAttributeInfo attr) {
+		return excAttrs.isExcluded(name, attr.getName());
 	}
 
 	/**
 	 * Mark a given attribute to be excluded from sampling.
 	 *
+	 * @param name MBean object name
 	 * @param attr MBean attribute info
 	 */
-	protected void exclude(MBeanAttributeInfo attr) {
-		excAttrs.add(attr);
+	protected void exclude(ObjectName name, MBeanAttributeInfo attr) {
+		exclude(name, attr, true);
+	}
+
+	/**
+	 * Mark a given attribute to be excluded from sampling.
+	 *
+	 * @param name MBean object name
+	 * @param attr MBean attribute info
+	 * @param persistent true when exclusion should survive agent restart, false otherwise
+	 */
+	protected void exclude(ObjectName name, MBeanAttributeInfo attr, boolean persistent) {
+		excAttrs.exclude(name, attr.getName(), persistent);
+	}
+
+	/**
+	 * Determine if a given sampling error is transient, e.g. MBean server connection failure or MBean
+	 * unregistration. Exclusions caused by transient errors are not persisted.
+	 *
+	 * @param error sampling error
+	 * @return true when error is transient, false otherwise
+	 */
+	protected boolean isTransient(Throwable error) {
+		return error instanceof IOException || error instanceof InstanceNotFoundException;
 	}
 
 	@Override
 	public void pre(SampleContext context, Activity activity) {
+		excAttrs.expire();
 		if (trace) {
 			out.println("Pre: " + activity.getName() 
 					+ ": sample.count=" + context.getSampleCount() 
@@ -101,7 +144,8 @@ public class DefaultSampleListener implements SampleListener {
 
 	@Override
 	public void pre(SampleContext context, AttributeSample sample) {
-		sample.excludeNext(!sample.getAttributeInfo().isReadable() || isExcluded(sample.getAttributeInfo()));
+		sample.excludeNext(!sample.getAttributeInfo().isReadable()
+				|| isExcluded(sample.getObjetName(), sample.getAttributeInfo()));
 	}
 
 	@Override
@@ -149,7 +193,7 @@ public class DefaultSampleListener implements SampleListener {
 			sample.getError().printStackTrace(out);
 		}
 		if (sample.excludeNext()) {
-			exclude(sample.getAttributeInfo());
+			exclude(sample.getObjetName(), sample.getAttributeInfo(), !isTransient(sample.getError()));
 		}
 	}
 
@@ -157,6 +201,9 @@ public class DefaultSampleListener implements SampleListener {
 	public void getStats(SampleContext context, Map<String, Object> stats) {
 		stats.put(STAT_TRACE_MODE, trace);
 		stats.put(STAT_EXCLUDE_SET_COUNT, excAttrs.size());
+		stats.put(STAT_EXCLUDE_HIT_COUNT, excAttrs.getHitCount());
+		stats.put(STAT_EXCLUDE_MISS_COUNT, excAttrs.getMissCount());
+		stats.put(STAT_FLATTEN_PLAN_COUNT, flattener.size());
 	}
 
 	@Override
@@ -189,27 +236,6 @@ public class DefaultSampleListener implements SampleListener {
 	 * @return snapshot instance where all attributes are contained
 	 */
 	private PropertySnapshot processAttrValue(PropertySnapshot snapshot, MBeanAttributeInfo jinfo, String propName, Object value) {
-		if (value instanceof CompositeData) {
-			CompositeData cdata = (CompositeData) value;
-			Set<String> keys = cdata.getCompositeType().keySet();
-			for (String key : keys) {
-				Object cVal = cdata.get(key);
-				processAttrValue(snapshot, jinfo, propName + "\\" + key, cVal);
-			}
-		} else if (value instanceof TabularData) {
-			TabularData tData = (TabularData) value;
-			Collection<?> values = tData.values();
-			int row = 0;
-			for (Object tVal : values) {
-				processAttrValue(snapshot, jinfo, propName + "\\" + padNumber(++row), tVal);
-			}
-		} else {
-			snapshot.add(propName, value);
-		}
-		return snapshot;
-	}
-
-	private static String padNumber(int idx) {
-		return idx < 10 ? "0" + idx : String.valueOf(idx);
+		return flattener.flatten(snapshot, propName, value);
 	}
-}
\ No newline at end of file
+}
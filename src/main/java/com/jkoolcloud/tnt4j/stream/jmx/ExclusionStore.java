@@ -0,0 +1,493 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import com.jkoolcloud.tnt4j.utils.Utils;
+
+/**
+ * <p>
+ * This class provides store of MBean attributes excluded from sampling used by {@link DefaultSampleListener}.
+ * Exclusions are keyed by object name (or object name pattern) and attribute name. Store size is bounded: when store is
+ * full, eldest exclusion is dropped. Exclusions may expire after defined time to live, so excluded attributes get
+ * re-probed. Store may be persisted to a local file, one {@code expires<TAB>object-name#attribute} exclusion per
+ * line, so exclusions survive agent restarts. Exclusion expiration time is persisted as absolute time in milliseconds,
+ * {@code 0} - if exclusion never expires, and exclusions expired while agent was stopped are dropped on load.
+ * Exclusions caused by transient errors are kept in memory only and are not persisted.
+ * </p>
+ * <p>
+ * Exclusion lookups do not lock and do not allocate: exclusions are looked up in concurrent map of per MBean
+ * attribute exclusions, and object name pattern exclusions are kept in copy-on-write array. Changed exclusions are
+ * persisted to store file by {@link #flush()}, called periodically by background daemon thread (see
+ * {@link #scheduleFlush(long)}) and by JVM shutdown hook for default store, so sampling threads never wait for store
+ * file I/O.
+ * </p>
+ *
+ * @see DefaultSampleListener
+ *
+ * @version $Revision: 1 $
+ */
+public class ExclusionStore {
+	/**
+	 * System property name to define maximal number of exclusions kept by default store.
+	 */
+	public static final String PROP_STORE_SIZE = "com.jkoolcloud.tnt4j.stream.jmx.exclude.store.size";
+	/**
+	 * System property name to define default store exclusions time to live in milliseconds, {@code 0} - exclusions
+	 * never expire.
+	 */
+	public static final String PROP_STORE_TTL = "com.jkoolcloud.tnt4j.stream.jmx.exclude.store.ttl";
+	/**
+	 * System property name to define file default store exclusions are persisted to.
+	 */
+	public static final String PROP_STORE_FILE = "com.jkoolcloud.tnt4j.stream.jmx.exclude.store.file";
+	/**
+	 * System property name to define period in milliseconds changed exclusions of default store are flushed to store
+	 * file.
+	 */
+	public static final String PROP_STORE_FLUSH_PERIOD = "com.jkoolcloud.tnt4j.stream.jmx.exclude.store.flush.period";
+
+	public static final String ATTR_DELIM = "#";
+	public static final String EXPIRES_DELIM = "\t";
+	public static final int DEFAULT_STORE_SIZE = 10000;
+	public static final long DEFAULT_FLUSH_PERIOD = 10000;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static ExclusionStore defaultStore;
+	private static ScheduledExecutorService flusher;
+
+	private final int maxSize;
+	private final long ttl;
+	private final File file;
+	private final LinkedHashMap<Key, Long> exclusions;
+	private final ConcurrentHashMap<ObjectName, ConcurrentHashMap<String, Long>> lookup =
+			new ConcurrentHashMap<ObjectName, ConcurrentHashMap<String, Long>>(89);
+	private volatile int count = 0;
+	private final Set<Key> transients = new HashSet<Key>();
+	private volatile Key[] patterns = new Key[0];
+	private volatile boolean dirty = false;
+	private final Object saveLock = new Object();
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * Create exclusions store.
+	 *
+	 * @param maxSize maximal number of exclusions kept by store
+	 * @param ttl exclusions time to live in milliseconds, {@code 0} - exclusions never expire
+	 * @param file file exclusions are persisted to, {@code null} - if exclusions are not persisted
+	 */
+	public ExclusionStore(int maxSize, long ttl, File file) {
+		this.maxSize = Math.max(1, maxSize);
+		this.ttl = ttl;
+		this.file = file;
+		this.exclusions = new LinkedHashMap<Key, Long>(89) {
+			private static final long serialVersionUID = -3413453387587917427L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+				if (size() > ExclusionStore.this.maxSize) {
+					dropped(eldest.getKey());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Obtain default exclusions store shared by sample listeners. Default store is configured using system properties
+	 * {@value #PROP_STORE_SIZE}, {@value #PROP_STORE_TTL}, {@value #PROP_STORE_FILE}, and exclusions persisted to
+	 * store file are loaded when default store gets created. Changed exclusions of default store are flushed to store
+	 * file every {@value #PROP_STORE_FLUSH_PERIOD} milliseconds and on JVM shutdown.
+	 *
+	 * @return default exclusions store
+	 */
+	public static synchronized ExclusionStore getDefault() {
+		if (defaultStore == null) {
+			String fileName = System.getProperty(PROP_STORE_FILE);
+			defaultStore = new ExclusionStore(Integer.getInteger(PROP_STORE_SIZE, DEFAULT_STORE_SIZE),
+					Long.getLong(PROP_STORE_TTL, 0), Utils.isEmpty(fileName) ? null : new File(fileName));
+			try {
+				defaultStore.load();
+			} catch (IOException exc) {
+				System.err.println("ExclusionStore: failed to load exclusions from " + fileName + ": " + exc);
+			}
+			defaultStore.scheduleFlush(Long.getLong(PROP_STORE_FLUSH_PERIOD, DEFAULT_FLUSH_PERIOD));
+			final ExclusionStore store = defaultStore;
+			Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					store.flush();
+				}
+			}));
+		}
+		return defaultStore;
+	}
+
+	/**
+	 * Determine if a given MBean attribute is excluded. Expired exclusion is dropped and attribute is not excluded.
+	 *
+	 * @param name MBean object name
+	 * @param attrName MBean attribute name
+	 * @return {@code true} if attribute is excluded, {@code false} - otherwise
+	 */
+	public boolean isExcluded(ObjectName name, String attrName) {
+		Key pKey = null;
+		Long expires = getExpires(name, attrName);
+		if (expires == null) {
+			for (Key pattern : patterns) {
+				if (pattern.matches(name, attrName)) {
+					pKey = pattern;
+					expires = getExpires(pattern.name, pattern.attrName);
+					break;
+				}
+			}
+		}
+		if (expires != null && expires > System.currentTimeMillis()) {
+			hitCount.incrementAndGet();
+			return true;
+		}
+		if (expires != null) {
+			expire(pKey != null ? pKey : new Key(name, attrName), expires);
+		}
+		missCount.incrementAndGet();
+		return false;
+	}
+
+	private Long getExpires(ObjectName name, String attrName) {
+		ConcurrentHashMap<String, Long> attrs = lookup.get(name);
+		return attrs == null ? null : attrs.get(attrName);
+	}
+
+	private synchronized void expire(Key key, Long expires) {
+		if (expires.equals(exclusions.get(key))) {
+			remove(key);
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Exclude a given MBean attribute. Store is marked changed, so exclusion is persisted to store file, if one is
+	 * defined, on next {@link #flush()}.
+	 *
+	 * @param name MBean object name or object name pattern
+	 * @param attrName MBean attribute name
+	 */
+	public void exclude(ObjectName name, String attrName) {
+		exclude(name, attrName, true);
+	}
+
+	/**
+	 * Exclude a given MBean attribute. Non persistent exclusion, e.g. caused by transient MBean server connection
+	 * error, is kept until it expires or gets dropped from store, but is not persisted to store file, so it does not
+	 * survive agent restart.
+	 *
+	 * @param name MBean object name or object name pattern
+	 * @param attrName MBean attribute name
+	 * @param persistent {@code true} if exclusion shall be persisted to store file, {@code false} - otherwise
+	 */
+	public synchronized void exclude(ObjectName name, String attrName, boolean persistent) {
+		Key key = new Key(name, attrName);
+		put(key, ttl > 0 ? System.currentTimeMillis() + ttl : Long.MAX_VALUE);
+		if (!persistent) {
+			transients.add(key);
+		}
+		dirty = true;
+	}
+
+	/**
+	 * Periodically persist changed exclusions to store file using shared background daemon thread. Does nothing if
+	 * store file is not defined.
+	 *
+	 * @param periodMs flush period in milliseconds
+	 */
+	public void scheduleFlush(long periodMs) {
+		if (file == null || periodMs <= 0) {
+			return;
+		}
+		getFlusher().scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				flush();
+			}
+		}, periodMs, periodMs, TimeUnit.MILLISECONDS);
+	}
+
+	private static synchronized ScheduledExecutorService getFlusher() {
+		if (flusher == null) {
+			flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "ExclusionStore-flusher");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return flusher;
+	}
+
+	/**
+	 * Persist exclusions to store file, if store has changed since last flush and store file is defined.
+	 *
+	 * @return {@code true} if exclusions were persisted, {@code false} - otherwise
+	 */
+	public boolean flush() {
+		if (!dirty || file == null) {
+			return false;
+		}
+		try {
+			save();
+			return true;
+		} catch (IOException exc) {
+			dirty = true; // retry on next flush
+			System.err.println("ExclusionStore: failed to save exclusions to " + file + ": " + exc);
+			return false;
+		}
+	}
+
+	/**
+	 * Drop expired exclusions.
+	 *
+	 * @return number of dropped exclusions
+	 */
+	public synchronized int expire() {
+		if (ttl <= 0) {
+			return 0;
+		}
+		int expired = 0;
+		long now = System.currentTimeMillis();
+		Iterator<Map.Entry<Key, Long>> it = exclusions.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Key, Long> entry = it.next();
+			if (entry.getValue() > now) {
+				break; // entries are ordered by expiration time
+			}
+			it.remove();
+			dropped(entry.getKey());
+			expired++;
+		}
+		if (expired > 0) {
+			dirty = true;
+		}
+		return expired;
+	}
+
+	/**
+	 * Obtain number of exclusions kept by this store.
+	 *
+	 * @return number of exclusions
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Obtain number of exclusion lookups finding attribute excluded.
+	 *
+	 * @return number of exclusion hits
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Obtain number of exclusion lookups finding attribute not excluded.
+	 *
+	 * @return number of exclusion misses
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Load exclusions persisted to store file. Malformed lines and expired exclusions are skipped. Lines having no
+	 * expiration time are loaded as exclusions excluded at load time. Expiration time of loaded exclusion is limited to
+	 * load time plus time to live of this store.
+	 *
+	 * @throws IOException if store file can't be read
+	 */
+	public synchronized void load() throws IOException {
+		if (file == null || !file.isFile()) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		long maxExpires = ttl > 0 ? now + ttl : Long.MAX_VALUE;
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				long expires = maxExpires;
+				int expIdx = line.indexOf(EXPIRES_DELIM);
+				if (expIdx > 0) {
+					try {
+						long persisted = Long.parseLong(line.substring(0, expIdx).trim());
+						expires = Math.min(persisted > 0 ? persisted : Long.MAX_VALUE, maxExpires);
+						line = line.substring(expIdx + 1);
+					} catch (NumberFormatException exc) {
+						continue;
+					}
+				}
+				int delimIdx = line.lastIndexOf(ATTR_DELIM);
+				if (delimIdx <= 0 || delimIdx == line.length() - 1 || expires <= now) {
+					continue;
+				}
+				try {
+					put(new Key(new ObjectName(line.substring(0, delimIdx).trim()),
+							line.substring(delimIdx + 1).trim()), expires);
+				} catch (MalformedObjectNameException exc) {
+					// skip malformed exclusion
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Persist exclusions to store file. Exclusions are copied under store lock, while store file is written without
+	 * holding it, so exclusion changes are not blocked by store file I/O.
+	 *
+	 * @throws IOException if store file can't be written
+	 */
+	public void save() throws IOException {
+		if (file == null) {
+			return;
+		}
+		synchronized (saveLock) {
+			List<String> lines = getPersistentLines();
+			File tmpFile = new File(file.getPath() + ".tmp");
+			Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmpFile), UTF8));
+			try {
+				for (String line : lines) {
+					writer.write(line);
+					writer.write('\n');
+				}
+			} finally {
+				writer.close();
+			}
+			if (!tmpFile.renameTo(file)) {
+				file.delete();
+				if (!tmpFile.renameTo(file)) {
+					throw new IOException("Can't rename " + tmpFile + " to " + file);
+				}
+			}
+		}
+	}
+
+	private synchronized List<String> getPersistentLines() {
+		dirty = false;
+		List<String> lines = new ArrayList<String>(exclusions.size());
+		for (Map.Entry<Key, Long> entry : exclusions.entrySet()) {
+			Key key = entry.getKey();
+			if (transients.contains(key)) {
+				continue;
+			}
+			long expires = entry.getValue();
+			lines.add((expires == Long.MAX_VALUE ? 0 : expires) + EXPIRES_DELIM + key.name.getCanonicalName()
+					+ ATTR_DELIM + key.attrName);
+		}
+		return lines;
+	}
+
+	private void put(Key key, Long expires) {
+		remove(key); // keep entries ordered by expiration time
+		exclusions.put(key, expires);
+		ConcurrentHashMap<String, Long> attrs = lookup.get(key.name);
+		if (attrs == null) {
+			attrs = new ConcurrentHashMap<String, Long>();
+			lookup.put(key.name, attrs);
+		}
+		if (attrs.put(key.attrName, expires) == null) {
+			count++;
+		}
+		if (key.name.isPattern()) {
+			Key[] pArray = Arrays.copyOf(patterns, patterns.length + 1);
+			pArray[pArray.length - 1] = key;
+			patterns = pArray;
+		}
+	}
+
+	private void remove(Key key) {
+		if (exclusions.remove(key) != null) {
+			dropped(key);
+		}
+	}
+
+	private void dropped(Key key) {
+		ConcurrentHashMap<String, Long> attrs = lookup.get(key.name);
+		if (attrs != null && attrs.remove(key.attrName) != null) {
+			count--;
+			if (attrs.isEmpty()) {
+				lookup.remove(key.name);
+			}
+		}
+		transients.remove(key);
+		if (key.name.isPattern()) {
+			List<Key> pList = new ArrayList<Key>(Arrays.asList(patterns));
+			pList.remove(key);
+			patterns = pList.toArray(new Key[pList.size()]);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ExclusionStore{size=" + size() + ", max.size=" + maxSize + ", ttl=" + ttl + ", file=" + file + "}";
+	}
+
+	/**
+	 * Exclusion key: object name and attribute name.
+	 */
+	private static class Key {
+		final ObjectName name;
+		final String attrName;
+
+		Key(ObjectName name, String attrName) {
+			this.name = name;
+			this.attrName = attrName;
+		}
+
+		boolean matches(ObjectName oname, String aName) {
+			return attrName.equals(aName) && name.apply(oname);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * name.hashCode() + attrName.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return name.equals(other.name) && attrName.equals(other.attrName);
+		}
+	}
+}
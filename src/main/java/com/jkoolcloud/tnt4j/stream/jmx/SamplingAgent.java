@@ -25,6 +25,7 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
@@ -40,6 +41,7 @@ import org.apache.commons.lang3.StringUtils;
 import com.jkoolcloud.tnt4j.stream.jmx.core.Sampler;
 import com.jkoolcloud.tnt4j.stream.jmx.factory.DefaultSamplerFactory;
 import com.jkoolcloud.tnt4j.stream.jmx.factory.SamplerFactory;
+import com.jkoolcloud.tnt4j.stream.jmx.scheduler.SampleHandlerImpl;
 import com.jkoolcloud.tnt4j.utils.Utils;
 
 /**
@@ -63,6 +65,7 @@ public class SamplingAgent {
 	private static final String PARAM_AGENT_OPTIONS = "-ao:";
 	private static final String PARAM_AGENT_USER_LOGIN = "-ul:";
 	private static final String PARAM_AGENT_USER_PASS = "-up:";
+	private static final String PARAM_AGENT_PARALLELISM = "-sp:";
 
 	private static final String AGENT_MODE_AGENT = "-agent";
 	private static final String AGENT_MODE_ATTACH = "-attach";
@@ -78,6 +81,9 @@ public class SamplingAgent {
 	private static final String AGENT_ARG_E_FILTER = "beans.exclude.filter";
 	private static final String AGENT_ARG_S_TIME = "agent.sample.time";
 	private static final String AGENT_ARG_W_TIME = "agent.wait.time";
+	private static final String AGENT_ARG_PARALLELISM = "agent.sample.parallelism";
+
+	private static final String AGENT_PROP_PREFIX = "com.jkoolcloud.tnt4j.stream.jmx.";
 
 	private static final String DEFAULT_AGENT_OPTIONS = Sampler.JMX_FILTER_ALL + "!" + Sampler.JMX_FILTER_NONE + "!"
 			+ Sampler.JMX_SAMPLE_PERIOD;
@@ -86,25 +92,29 @@ public class SamplingAgent {
 	 * Entry point to be loaded as {@code -javaagent:jarpath="mbean-filter!sample.ms"} command line.
 	 * Example:  {@code -javaagent:tnt4j-sample-jmx.jar="*:*!30000"}
 	 * 
-	 * @param options '!' separated list of options mbean-filter!sample.ms, where mbean-filter is semicolon separated list of mbean filters
+	 * @param options '!' separated list of options mbean-filter!sample.ms[!-Dproperty=value...], where mbean-filter is semicolon separated list of mbean filters
 	 * @param inst instrumentation handle
 	 */
 	public static void premain(String options, Instrumentation inst) throws IOException {
+		String[] args = options == null ? new String[0] : splitOptions(options);
+		for (int ai = 2; ai < args.length; ai++) {
+			setAgentProperty(args[ai]);
+		}
 		String incFilter = System.getProperty("com.jkoolcloud.tnt4j.stream.jmx.include.filter", Sampler.JMX_FILTER_ALL);
 		String excFilter = System.getProperty("com.jkoolcloud.tnt4j.stream.jmx.exclude.filter", Sampler.JMX_FILTER_NONE);
 		int period = Integer.getInteger("com.jkoolcloud.tnt4j.stream.jmx.period", Sampler.JMX_SAMPLE_PERIOD);
-		if (options != null) {
-			String[] args = options.split("!");
-			if (args.length >= 2) {
-				incFilter = args[0];
-				period = Integer.parseInt(args[1]);
-			}
+		if (args.length >= 2) {
+			incFilter = args[0];
+			period = Integer.parseInt(args[1]);
 		}
+		// load persisted attribute exclusions before sampling starts
+		ExclusionStore excStore = ExclusionStore.getDefault();
 		sample(incFilter, excFilter, period, TimeUnit.MILLISECONDS);
 		System.out.println("SamplingAgent.premain: include.filter=" + incFilter 
 				+ ", exclude.filter=" + excFilter
 				+ ", sample.ms=" + period 
 				+ ", trace=" + TRACE 
+				+ ", exclude.store=" + excStore 
 				+ ", tnt4j.config=" + System.getProperty("tnt4j.config") 
 				+ ", jmx.sample.list=" + STREAM_AGENTS);
 	}
@@ -123,7 +133,7 @@ public class SamplingAgent {
 		String tnt4jProp = System.getProperty("tnt4j.config");
 		String agentLibPath = "";
 		if (!Utils.isEmpty(agentArgs)) {
-			String[] args = agentArgs.split("!");
+			String[] args = splitOptions(agentArgs);
 
 			if (args.length >= 2) {
 				agentParams = args[0] + "!" + args[1];
@@ -143,6 +153,8 @@ public class SamplingAgent {
 				} else if (arg.startsWith("trace=")) {
 					String[] prop = arg.split("=");
 					TRACE = prop.length > 1 ? Boolean.parseBoolean(prop[1]) : TRACE;
+				} else {
+					setAgentProperty(arg);
 				}
 			}
 		}
@@ -166,6 +178,49 @@ public class SamplingAgent {
 		premain(agentParams, inst);
 	}
 
+	/**
+	 * Splits '!' separated agent options string into options. Value of {@code -Dproperty=value} option may contain '!'
+	 * symbol: within such option '!' symbol separates options only when it is followed by another {@code -D} or
+	 * {@code trace=} option.
+	 *
+	 * @param options '!' separated agent options string
+	 * @return array of agent options
+	 */
+	static String[] splitOptions(String options) {
+		List<String> args = new ArrayList<String>();
+		int start = 0;
+		int delimIdx;
+		while ((delimIdx = options.indexOf('!', start)) >= 0) {
+			if (options.startsWith("-D", start)) {
+				while (delimIdx >= 0 && !options.startsWith("-D", delimIdx + 1)
+						&& !options.startsWith("trace=", delimIdx + 1)) {
+					delimIdx = options.indexOf('!', delimIdx + 1);
+				}
+				if (delimIdx < 0) {
+					break;
+				}
+			}
+			args.add(options.substring(start, delimIdx));
+			start = delimIdx + 1;
+		}
+		args.add(options.substring(start));
+		return args.toArray(new String[args.size()]);
+	}
+
+	/**
+	 * Sets system property defined by agent argument {@code -Dproperty=value}. Arguments of other format are ignored.
+	 *
+	 * @param arg agent argument
+	 */
+	private static void setAgentProperty(String arg) {
+		if (arg.startsWith("-D")) {
+			int eqIdx = arg.indexOf('=');
+			if (eqIdx > 2) {
+				System.setProperty(arg.substring(2, eqIdx), arg.substring(eqIdx + 1));
+			}
+		}
+	}
+
 	/**
 	 * Loads required classpath entries to running JVM.
 	 *
@@ -199,6 +254,11 @@ public class SamplingAgent {
 
 		if (argsValid) {
 			String am = props.getProperty(AGENT_ARG_MODE);
+			String parallelism = props.getProperty(AGENT_ARG_PARALLELISM);
+			if (parallelism != null) {
+				// forwarded to attached agent as Stream-JMX configuration property
+				System.setProperty(SampleHandlerImpl.PROP_PARALLELISM, parallelism);
+			}
 			if (AGENT_MODE_CONNECT.equalsIgnoreCase(am)) {
 				String vmDescr = props.getProperty(AGENT_ARG_VM);
 				String user = props.getProperty(AGENT_ARG_USER);
@@ -239,12 +299,14 @@ public class SamplingAgent {
 			System.out.println("   or: -attach -vm:vmName/vmId -ap:agentJarPath -ao:agentOptions (e.g -attach -vm:activemq -ap:[ENV_PATH]/tnt-stream-jmx.jar -ao:*:*!!10000)");
 			System.out.println("   or: -connect -vm:vmName/vmId/JMX_URL -ao:agentOptions (e.g -connect -vm:activemq -ao:*:*!!10000");
 			System.out.println("   or: -connect -vm:vmName/vmId/JMX_URL -ul:userLogin -up:userPassword -ao:agentOptions (e.g -connect -vm:activemq -ul:admin -up:admin -ao:*:*!!10000");
+			System.out.println("   -attach and -connect modes also accept -sp:samplingThreads (e.g -connect -vm:activemq -sp:4 -ao:*:*!!10000)");
 			System.out.println();
 			System.out.println("Parameters definition:");
 			System.out.println("   -ao: - agent options string using '!' symbol as delimiter. Options format: mbean-filter!exclude-filter!sample-ms");
 			System.out.println("       mbean-filter - MBean include name filter defined using object name pattern: domainName:keysSet");
 			System.out.println("       exclude-filter - MBean exclude name filter defined using object name pattern: domainName:keysSet");
 			System.out.println("       sample-ms - MBeans sampling rate in milliseconds");
+			System.out.println("   -sp: - number of worker threads used to sample MBeans in parallel");
 
 			System.exit(1);
 		}
@@ -332,6 +394,24 @@ public class SamplingAgent {
 					}
 
 					props.setProperty(AGENT_ARG_PASS, pValue);
+				} else if (arg.startsWith(PARAM_AGENT_PARALLELISM)) {
+					if (StringUtils.isNotEmpty(props.getProperty(AGENT_ARG_PARALLELISM))) {
+						System.out.println("Sampling parallelism already defined. Can not use argument ["
+								+ PARAM_AGENT_PARALLELISM + "] multiple times.");
+						return false;
+					}
+
+					String pValue = arg.substring(PARAM_AGENT_PARALLELISM.length());
+					try {
+						if (Integer.parseInt(pValue) < 1) {
+							throw new NumberFormatException();
+						}
+					} catch (NumberFormatException exc) {
+						System.out.println("Invalid argument '" + PARAM_AGENT_PARALLELISM + "' value: " + pValue);
+						return false;
+					}
+
+					props.setProperty(AGENT_ARG_PARALLELISM, pValue);
 				} else {
 					System.out.println("Invalid argument: " + arg);
 					return false;
@@ -483,6 +563,13 @@ public class SamplingAgent {
 
 		agentOptions += "!-DSamplingAgent.path=" + agentPath;
 
+		// forward Stream-JMX configuration properties to agent
+		for (String pName : System.getProperties().stringPropertyNames()) {
+			if (pName.startsWith(AGENT_PROP_PREFIX)) {
+				agentOptions += "!-D" + pName + "=" + System.getProperty(pName);
+			}
+		}
+
 		String tnt4jConf = System.getProperty("tnt4j.config");
 
 		if (!Utils.isEmpty(tnt4jConf)) {
@@ -544,7 +631,7 @@ public class SamplingAgent {
 				Sampler.JMX_FILTER_NONE);
 		int period = Integer.getInteger("com.jkoolcloud.tnt4j.stream.jmx.period", Sampler.JMX_SAMPLE_PERIOD);
 		if (options != null) {
-			String[] args = options.split("!");
+			String[] args = splitOptions(options);
 			if (args.length > 0) {
 				incFilter = args[0];
 			}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.openmbean.*;
+
+import com.jkoolcloud.tnt4j.core.PropertySnapshot;
+
+/**
+ * <p>
+ * This class flattens {@link CompositeData} and {@link TabularData} attribute values into snapshot properties used by
+ * {@link DefaultSampleListener}. Composite item values are stored as {@code attribute\key} properties, tabular rows -
+ * as {@code attribute\row-number} properties. Flattening plan is compiled once per attribute path and open type:
+ * composite item keys and property names are precomputed and cached, so flattening a value only fetches item values
+ * and adds them to snapshot. Tabular row plans are cached for first {@value #MAX_CACHED_ROWS} rows only, further
+ * rows are flattened using one time plans, so large tables do not grow cached plans without bound.
+ * </p>
+ *
+ * @see DefaultSampleListener
+ *
+ * @version $Revision: 1 $
+ */
+class ValueFlattener {
+	static final String PATH_DELIM = "\\";
+	static final int MAX_CACHED_ROWS = 128;
+
+	private final ConcurrentHashMap<OpenType<?>, ConcurrentHashMap<String, Node>> plans =
+			new ConcurrentHashMap<OpenType<?>, ConcurrentHashMap<String, Node>>();
+
+	/**
+	 * Flatten a given value into snapshot properties. Values other than {@link CompositeData} and {@link TabularData}
+	 * are stored as single property.
+	 *
+	 * @param snapshot instance where flattened values are stored
+	 * @param propName property name of a given value
+	 * @param value value to flatten
+	 * @return snapshot instance where all values are stored
+	 */
+	PropertySnapshot flatten(PropertySnapshot snapshot, String propName, Object value) {
+		if (value instanceof CompositeData) {
+			getNode(((CompositeData) value).getCompositeType(), propName).flatten(snapshot, value);
+		} else if (value instanceof TabularData) {
+			getNode(((TabularData) value).getTabularType(), propName).flatten(snapshot, value);
+		} else {
+			snapshot.add(propName, value);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Obtain number of compiled flattening plans.
+	 *
+	 * @return number of compiled plans
+	 */
+	int size() {
+		int size = 0;
+		for (ConcurrentHashMap<String, Node> nodes : plans.values()) {
+			size += nodes.size();
+		}
+		return size;
+	}
+
+	private Node getNode(OpenType<?> type, String propName) {
+		ConcurrentHashMap<String, Node> nodes = plans.get(type);
+		if (nodes == null) {
+			nodes = new ConcurrentHashMap<String, Node>();
+			ConcurrentHashMap<String, Node> prev = plans.putIfAbsent(type, nodes);
+			nodes = prev == null ? nodes : prev;
+		}
+		Node node = nodes.get(propName);
+		if (node == null) {
+			node = compile(type, propName);
+			Node prev = nodes.putIfAbsent(propName, node);
+			node = prev == null ? node : prev;
+		}
+		return node;
+	}
+
+	private static Node compile(OpenType<?> type, String propName) {
+		if (type instanceof CompositeType) {
+			return new CompositeNode((CompositeType) type, propName);
+		} else if (type instanceof TabularType) {
+			return new TabularNode((TabularType) type, propName);
+		}
+		return null;
+	}
+
+	private static String padNumber(int idx) {
+		return idx < 10 ? "0" + idx : String.valueOf(idx);
+	}
+
+	/**
+	 * Compiled flattening plan of single attribute path.
+	 */
+	private abstract static class Node {
+		final String propName;
+
+		Node(String propName) {
+			this.propName = propName;
+		}
+
+		abstract void flatten(PropertySnapshot snapshot, Object value);
+	}
+
+	/**
+	 * Flattening plan of {@link CompositeData} value: item keys, property names and nested item plans.
+	 */
+	private static class CompositeNode extends Node {
+		final CompositeType type;
+		final String[] keys;
+		final String[] propNames;
+		final Node[] children;
+
+		CompositeNode(CompositeType type, String propName) {
+			super(propName);
+			this.type = type;
+			Set<String> keySet = type.keySet();
+			keys = keySet.toArray(new String[keySet.size()]);
+			propNames = new String[keys.length];
+			children = new Node[keys.length];
+			for (int i = 0; i < keys.length; i++) {
+				propNames[i] = propName + PATH_DELIM + keys[i];
+				children[i] = compile(type.getType(keys[i]), propNames[i]);
+			}
+		}
+
+		@Override
+		void flatten(PropertySnapshot snapshot, Object value) {
+			CompositeData cData = (CompositeData) value;
+			if (cData.getCompositeType() != type && !type.equals(cData.getCompositeType())) {
+				// value type does not match plan, compile one time plan
+				new CompositeNode(cData.getCompositeType(), propName).flatten(snapshot, value);
+				return;
+			}
+			Object[] values = cData.getAll(keys);
+			for (int i = 0; i < keys.length; i++) {
+				Node child = children[i];
+				if (child != null && (values[i] instanceof CompositeData || values[i] instanceof TabularData)) {
+					child.flatten(snapshot, values[i]);
+				} else {
+					snapshot.add(propNames[i], values[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Flattening plan of {@link TabularData} value: row plans, grown as more rows are seen up to
+	 * {@value #MAX_CACHED_ROWS} rows.
+	 */
+	private static class TabularNode extends Node {
+		final CompositeType rowType;
+		volatile Node[] rows = new Node[0];
+
+		TabularNode(TabularType type, String propName) {
+			super(propName);
+			this.rowType = type.getRowType();
+		}
+
+		@Override
+		void flatten(PropertySnapshot snapshot, Object value) {
+			TabularData tData = (TabularData) value;
+			Node[] rowNodes = getRows(Math.min(tData.size(), MAX_CACHED_ROWS));
+			int row = 0;
+			for (Object tVal : tData.values()) {
+				if (row >= MAX_CACHED_ROWS) {
+					// row plan not cached, compile one time plan
+					new CompositeNode(rowType, getRowName(row)).flatten(snapshot, tVal);
+				} else {
+					if (row >= rowNodes.length) {
+						rowNodes = getRows(row + 1);
+					}
+					rowNodes[row].flatten(snapshot, tVal);
+				}
+				row++;
+			}
+		}
+
+		private String getRowName(int row) {
+			return propName + PATH_DELIM + padNumber(row + 1);
+		}
+
+		private Node[] getRows(int count) {
+			Node[] rowNodes = rows;
+			if (rowNodes.length < count) {
+				synchronized (this) {
+					rowNodes = rows;
+					if (rowNodes.length < count) {
+						int from = rowNodes.length;
+						rowNodes = Arrays.copyOf(rowNodes, count);
+						for (int i = from; i < count; i++) {
+							rowNodes[i] = new CompositeNode(rowType, getRowName(i));
+						}
+						rows = rowNodes;
+					}
+				}
+			}
+			return rowNodes;
+		}
+	}
+}
@@ -21,6 +21,8 @@ import com.jkoolcloud.tnt4j.stream.jmx.core.SampleContext;
 /**
  * <p> 
  * This interface defines a way to run actions on specific MBean attributes during a sample.
+ * When parallel sampling is enabled, actions are run concurrently by several sampling worker
+ * threads.
  * </p>
  * 
  * 
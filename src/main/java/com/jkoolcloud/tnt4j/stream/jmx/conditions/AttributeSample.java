@@ -25,6 +25,12 @@ import com.jkoolcloud.tnt4j.utils.Utils;
  * <p>
  * This class provides a wrapper for sampling a single JMX MBean attribute and maintain sample context.
  * </p>
+ * <p>
+ * Samples obtained from {@link SampleCursor} are reused for other attributes once sample processing completes, so
+ * listeners, conditions and actions retaining sample beyond single call must retain {@link #copy()} of it.
+ * </p>
+ * 
+ * @see SampleCursor
  * 
  * @version $Revision: 1 $
  * 
@@ -39,6 +45,9 @@ public class AttributeSample {
 	Throwable ex;
 	PropertySnapshot snapshot;
 	boolean excludeNext = false;
+	long baseUsec = 0;
+	long baseNanos = 0;
+	long cycle = 0;
 
 	/**
 	 * Create an attribute sample
@@ -70,6 +79,72 @@ public class AttributeSample {
 		return new AttributeSample(activity, snapshot, serverConn, name, ainfo);
 	}
 
+	/**
+	 * Reset this sample to sample a given MBean attribute. Sample timestamp is computed as a given base timestamp plus
+	 * monotonic time elapsed since base timestamp was taken.
+	 *
+	 * @param activity associated with current sample
+	 * @param snapshot snapshot sampled attribute value is stored to
+	 * @param serverConn MBean server connection instance
+	 * @param name MBean object name reference
+	 * @param ainfo MBean attribute info
+	 * @param baseUsec base timestamp in microseconds
+	 * @param baseNanos {@link System#nanoTime()} value taken with base timestamp
+	 * @param cycle sequence number of sampling cycle
+	 * @return instance of this sample
+	 */
+	AttributeSample reset(Activity activity, PropertySnapshot snapshot, MBeanServerConnection serverConn,
+			ObjectName name, MBeanAttributeInfo ainfo, long baseUsec, long baseNanos, long cycle) {
+		this.activity = activity;
+		this.snapshot = snapshot;
+		this.server = serverConn;
+		this.name = name;
+		this.ainfo = ainfo;
+		this.baseUsec = baseUsec;
+		this.baseNanos = baseNanos;
+		this.cycle = cycle;
+		this.timeStamp = 0;
+		this.value = null;
+		this.ex = null;
+		this.excludeNext = false;
+		return this;
+	}
+
+	/**
+	 * Clear references held by this sample, so pooled sample does not retain sampled objects once sample processing
+	 * completes.
+	 */
+	void clear() {
+		this.activity = null;
+		this.snapshot = null;
+		this.server = null;
+		this.name = null;
+		this.ainfo = null;
+		this.value = null;
+		this.ex = null;
+	}
+
+	/**
+	 * Create detached copy of this sample, which is not reused by {@link SampleCursor} and can be retained.
+	 *
+	 * @return copy of this sample
+	 */
+	public AttributeSample copy() {
+		AttributeSample sample = new AttributeSample(activity, snapshot, server, name, ainfo);
+		sample.baseUsec = baseUsec;
+		sample.baseNanos = baseNanos;
+		sample.cycle = cycle;
+		sample.timeStamp = timeStamp;
+		sample.value = value;
+		sample.ex = ex;
+		sample.excludeNext = excludeNext;
+		return sample;
+	}
+
+	private long currentTimeUsec() {
+		return baseUsec > 0 ? baseUsec + (System.nanoTime() - baseNanos) / 1000 : Utils.currentTimeUsec();
+	}
+
 	/**
 	 * Sample and retrieve the value associated with the MBean attribute.
 	 * 
@@ -92,7 +167,20 @@ public class AttributeSample {
 				throw exc;
 			}
 		}
-		timeStamp = Utils.currentTimeUsec();
+		timeStamp = currentTimeUsec();
+		return value;
+	}
+
+	/**
+	 * Assign the value associated with the MBean attribute, when it was already retrieved by other means, e.g. bulk
+	 * {@link MBeanServerConnection#getAttributes(ObjectName, String[])} call.
+	 * 
+	 * @param value the value associated with the current attribute
+	 * @return the value associated with the current attribute
+	 */
+	public Object sample(Object value) {
+		this.value = value;
+		timeStamp = currentTimeUsec();
 		return value;
 	}
 
@@ -116,7 +204,8 @@ public class AttributeSample {
 	}
 
 	/**
-	 * Mark attribute to be excluded from sampling
+	 * Mark attribute to be excluded from sampling. Exclusion applies to this sample only, MBean sampling plan is not
+	 * changed and listeners are consulted again on next sample.
 	 * 
 	 * @param exclude {@code true} to exclude, {@code false} to include
 	 * @return true if attribute to be marked for exclusion, false otherwise
@@ -136,7 +225,8 @@ public class AttributeSample {
 	}
 
 	/**
-	 * Obtain MBean attribute handle associated with this sample
+	 * Obtain MBean attribute handle associated with this sample. Attribute info provided by sampler retains attribute
+	 * name, type, flags and descriptor, but not attribute description.
 	 * 
 	 * @return MBean attribute handle associated with this sample
 	 */
@@ -209,6 +299,25 @@ public class AttributeSample {
 	 * @see #sample()
 	 */
 	public long ageUsec() {
-		return timeStamp > 0 ? (Utils.currentTimeUsec() - timeStamp) : -1;
+		return timeStamp > 0 ? (currentTimeUsec() - timeStamp) : -1;
+	}
+
+	/**
+	 * Obtain timestamp in microseconds of last sampled value.
+	 *
+	 * @return timestamp in microseconds of last sampled value, 0 if no sample was taken
+	 */
+	public long getTimeStampUsec() {
+		return timeStamp;
+	}
+
+	/**
+	 * Obtain sequence number of sampling cycle this sample was taken in. Samples not obtained from
+	 * {@link SampleCursor} belong to cycle 0.
+	 *
+	 * @return sequence number of sampling cycle
+	 */
+	public long getCycle() {
+		return cycle;
 	}
 }
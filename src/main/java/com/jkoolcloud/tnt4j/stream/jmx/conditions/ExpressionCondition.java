@@ -0,0 +1,198 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.conditions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * <p>
+ * This class defines a condition given as numeric expression over attributes of a given JMX object, e.g.
+ * {@code HeapMemoryUsage.used / HeapMemoryUsage.max > 0.9 && ThreadCount > 500}. Expression supports arithmetic
+ * operators +, -, *, /, %, comparison operators =, ==, !=, >, >=, <, <=, logical operators &&, ||, ! and parentheses.
+ * Variables are MBean attribute names optionally followed by dot separated {@link CompositeData} keys. Boolean
+ * attribute values are treated as {@code 1} and {@code 0}.
+ * </p>
+ * <p>
+ * Expression is parsed once, when condition is created, into a tree of primitive typed nodes. Condition evaluates to
+ * true once per sample of every matching MBean, when last of referenced attributes gets sampled and all referenced
+ * attribute values are numeric.
+ * </p>
+ *
+ * @see AttributeCondition
+ * @see AttributeSample
+ * @version $Revision: 1 $
+ *
+ */
+public class ExpressionCondition implements TargetedCondition {
+	String name;
+	String objName;
+	String expression;
+	ObjectName targetName;
+
+	final ExpressionParser.BoolNode predicate;
+	final String[] attrNames;
+	final int[] varAttrs;
+	final String[][] varKeys;
+	final long allAttrsMask;
+	final ConcurrentHashMap<ObjectName, EvalState> states = new ConcurrentHashMap<ObjectName, EvalState>();
+
+	/**
+	 * Create a condition on attributes of a given object by parsing a given expression.
+	 *
+	 * @param objName canonical MBean object name or object name pattern
+	 * @param expression condition expression
+	 * @throws IllegalArgumentException if expression is malformed
+	 */
+	public ExpressionCondition(String objName, String expression) {
+		this.objName = objName;
+		this.expression = expression;
+		this.name = expression + "@" + objName;
+		try {
+			this.targetName = new ObjectName(objName);
+		} catch (MalformedObjectNameException exc) {
+			throw new IllegalArgumentException("Invalid object name '" + objName + "'", exc);
+		}
+
+		ExpressionParser parser = new ExpressionParser(expression);
+		this.predicate = parser.parse();
+		List<String> vars = parser.getVariables();
+		List<String> attrs = new ArrayList<String>();
+		varAttrs = new int[vars.size()];
+		varKeys = new String[vars.size()][];
+		for (int i = 0; i < vars.size(); i++) {
+			String[] path = vars.get(i).split("\\.");
+			int attrIdx = attrs.indexOf(path[0]);
+			if (attrIdx < 0) {
+				attrIdx = attrs.size();
+				attrs.add(path[0]);
+			}
+			varAttrs[i] = attrIdx;
+			varKeys[i] = new String[path.length - 1];
+			System.arraycopy(path, 1, varKeys[i], 0, varKeys[i].length);
+		}
+		if (attrs.size() > Long.SIZE) {
+			throw new IllegalArgumentException(
+					"Expression '" + expression + "' references more than " + Long.SIZE + " attributes");
+		}
+		attrNames = attrs.toArray(new String[attrs.size()]);
+		allAttrsMask = attrNames.length == Long.SIZE ? -1L : (1L << attrNames.length) - 1;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public ObjectName getTargetName() {
+		return targetName;
+	}
+
+	@Override
+	public String getTargetAttribute() {
+		return attrNames.length == 1 ? attrNames[0] : null;
+	}
+
+	@Override
+	public boolean evaluate(AttributeSample sample) {
+		int attrIdx = indexOf(sample.getAttributeInfo().getName());
+		if (attrIdx < 0 || !targetName.apply(sample.getObjetName())) {
+			return false;
+		}
+		EvalState state = states.get(sample.getObjetName());
+		if (state == null) {
+			state = new EvalState(varAttrs.length);
+			EvalState prev = states.putIfAbsent(sample.getObjetName(), state);
+			state = prev == null ? state : prev;
+		}
+		synchronized (state) {
+			if (state.cycle != sample.getCycle()) {
+				state.cycle = sample.getCycle();
+				state.sampled = 0;
+			}
+			Object value = sample.get();
+			for (int i = 0; i < varAttrs.length; i++) {
+				if (varAttrs[i] == attrIdx) {
+					double num = toDouble(value, varKeys[i]);
+					if (Double.isNaN(num)) {
+						return false;
+					}
+					state.values[i] = num;
+				}
+			}
+			state.sampled |= 1L << attrIdx;
+			return state.sampled == allAttrsMask && predicate.eval(state.values);
+		}
+	}
+
+	/**
+	 * Drop collected attribute values of a given MBean, e.g. when MBean gets unregistered.
+	 *
+	 * @param name MBean object name
+	 */
+	public void evict(ObjectName name) {
+		states.remove(name);
+	}
+
+	private int indexOf(String attrName) {
+		for (int i = 0; i < attrNames.length; i++) {
+			if (attrNames[i].equals(attrName)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static double toDouble(Object value, String[] keys) {
+		for (String key : keys) {
+			if (value instanceof CompositeData && ((CompositeData) value).containsKey(key)) {
+				value = ((CompositeData) value).get(key);
+			} else {
+				return Double.NaN;
+			}
+		}
+		if (value instanceof Number) {
+			return ((Number) value).doubleValue();
+		} else if (value instanceof Boolean) {
+			return ((Boolean) value) ? 1 : 0;
+		}
+		return Double.NaN;
+	}
+
+	/**
+	 * Referenced attribute values of a single MBean collected during current sample.
+	 */
+	private static class EvalState {
+		final double[] values;
+		long cycle = -1;
+		long sampled;
+
+		EvalState(int size) {
+			values = new double[size];
+		}
+	}
+}
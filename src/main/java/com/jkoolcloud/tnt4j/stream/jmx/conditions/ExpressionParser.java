@@ -0,0 +1,390 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.conditions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * This class parses condition expression into a tree of primitive typed nodes used by {@link ExpressionCondition}.
+ * Supported grammar:
+ *
+ * <pre>
+ * or      := and ('||' and)*
+ * and     := not ('&amp;&amp;' not)*
+ * not     := '!' not | compare
+ * compare := sum (('==' | '=' | '!=' | '&gt;' | '&gt;=' | '&lt;' | '&lt;=') sum)?
+ * sum     := product (('+' | '-') product)*
+ * product := unary (('*' | '/' | '%') unary)*
+ * unary   := '-' unary | number | variable | '(' or ')'
+ * </pre>
+ *
+ * where variable is MBean attribute name optionally followed by dot separated composite data keys, e.g.
+ * {@code HeapMemoryUsage.used}. Every distinct variable gets its own slot in values array passed to node evaluation.
+ * </p>
+ *
+ * @see ExpressionCondition
+ * @version $Revision: 1 $
+ */
+class ExpressionParser {
+	private final String expr;
+	private final List<String> variables = new ArrayList<String>();
+	private int pos = 0;
+
+	/**
+	 * Create parser for a given expression
+	 *
+	 * @param expr condition expression
+	 */
+	ExpressionParser(String expr) {
+		this.expr = expr;
+	}
+
+	/**
+	 * Parse expression into predicate node
+	 *
+	 * @return compiled predicate
+	 * @throws IllegalArgumentException if expression is malformed or is not a boolean expression
+	 */
+	BoolNode parse() {
+		Object node = parseOr();
+		skipSpaces();
+		if (pos < expr.length()) {
+			throw error("unexpected '" + expr.charAt(pos) + "'");
+		}
+		return toBool(node);
+	}
+
+	/**
+	 * Obtain variables referenced by parsed expression in values array slot order
+	 *
+	 * @return list of referenced variables
+	 */
+	List<String> getVariables() {
+		return variables;
+	}
+
+	private Object parseOr() {
+		Object left = parseAnd();
+		while (accept("||")) {
+			left = new Or(toBool(left), toBool(parseAnd()));
+		}
+		return left;
+	}
+
+	private Object parseAnd() {
+		Object left = parseNot();
+		while (accept("&&")) {
+			left = new And(toBool(left), toBool(parseNot()));
+		}
+		return left;
+	}
+
+	private Object parseNot() {
+		if (!peek("!=") && accept("!")) {
+			return new Not(toBool(parseNot()));
+		}
+		return parseCompare();
+	}
+
+	private Object parseCompare() {
+		Object left = parseSum();
+		int op;
+		if (accept("==") || accept("=")) {
+			op = Compare.EQ;
+		} else if (accept("!=")) {
+			op = Compare.NE;
+		} else if (accept(">=")) {
+			op = Compare.GE;
+		} else if (accept("<=")) {
+			op = Compare.LE;
+		} else if (accept(">")) {
+			op = Compare.GT;
+		} else if (accept("<")) {
+			op = Compare.LT;
+		} else {
+			return left;
+		}
+		return new Compare(op, toNum(left), toNum(parseSum()));
+	}
+
+	private Object parseSum() {
+		Object left = parseProduct();
+		while (true) {
+			if (accept("+")) {
+				left = new Arithmetic('+', toNum(left), toNum(parseProduct()));
+			} else if (accept("-")) {
+				left = new Arithmetic('-', toNum(left), toNum(parseProduct()));
+			} else {
+				return left;
+			}
+		}
+	}
+
+	private Object parseProduct() {
+		Object left = parseUnary();
+		while (true) {
+			if (accept("*")) {
+				left = new Arithmetic('*', toNum(left), toNum(parseUnary()));
+			} else if (accept("/")) {
+				left = new Arithmetic('/', toNum(left), toNum(parseUnary()));
+			} else if (accept("%")) {
+				left = new Arithmetic('%', toNum(left), toNum(parseUnary()));
+			} else {
+				return left;
+			}
+		}
+	}
+
+	private Object parseUnary() {
+		if (accept("-")) {
+			return new Negate(toNum(parseUnary()));
+		}
+		if (accept("(")) {
+			Object node = parseOr();
+			if (!accept(")")) {
+				throw error("')' expected");
+			}
+			return node;
+		}
+		skipSpaces();
+		int start = pos;
+		if (pos < expr.length() && (Character.isDigit(expr.charAt(pos)) || expr.charAt(pos) == '.')) {
+			pos++;
+			while (pos < expr.length() && isNumberChar(expr.charAt(pos), expr.charAt(pos - 1))) {
+				pos++;
+			}
+			try {
+				return new Constant(Double.parseDouble(expr.substring(start, pos)));
+			} catch (NumberFormatException exc) {
+				throw error("malformed number '" + expr.substring(start, pos) + "'");
+			}
+		}
+		if (pos < expr.length() && Character.isJavaIdentifierStart(expr.charAt(pos))) {
+			while (pos < expr.length()
+					&& (Character.isJavaIdentifierPart(expr.charAt(pos)) || expr.charAt(pos) == '.')) {
+				pos++;
+			}
+			String var = expr.substring(start, pos);
+			int slot = variables.indexOf(var);
+			if (slot < 0) {
+				slot = variables.size();
+				variables.add(var);
+			}
+			return new Variable(slot);
+		}
+		throw error(pos < expr.length() ? "unexpected '" + expr.charAt(pos) + "'" : "unexpected end");
+	}
+
+	private static boolean isNumberChar(char ch, char prev) {
+		return Character.isDigit(ch) || ch == '.' || ch == 'e' || ch == 'E'
+				|| ((ch == '-' || ch == '+') && (prev == 'e' || prev == 'E'));
+	}
+
+	private boolean peek(String token) {
+		skipSpaces();
+		return expr.startsWith(token, pos);
+	}
+
+	private boolean accept(String token) {
+		if (peek(token)) {
+			pos += token.length();
+			return true;
+		}
+		return false;
+	}
+
+	private void skipSpaces() {
+		while (pos < expr.length() && Character.isWhitespace(expr.charAt(pos))) {
+			pos++;
+		}
+	}
+
+	private BoolNode toBool(Object node) {
+		if (node instanceof BoolNode) {
+			return (BoolNode) node;
+		}
+		throw error("boolean expression expected");
+	}
+
+	private NumNode toNum(Object node) {
+		if (node instanceof NumNode) {
+			return (NumNode) node;
+		}
+		throw error("numeric expression expected");
+	}
+
+	private IllegalArgumentException error(String msg) {
+		return new IllegalArgumentException("Invalid expression '" + expr + "' at position " + pos + ": " + msg);
+	}
+
+	/**
+	 * Numeric expression node
+	 */
+	abstract static class NumNode {
+		abstract double eval(double[] values);
+	}
+
+	/**
+	 * Boolean expression node
+	 */
+	abstract static class BoolNode {
+		abstract boolean eval(double[] values);
+	}
+
+	static class Constant extends NumNode {
+		final double value;
+
+		Constant(double value) {
+			this.value = value;
+		}
+
+		@Override
+		double eval(double[] values) {
+			return value;
+		}
+	}
+
+	static class Variable extends NumNode {
+		final int slot;
+
+		Variable(int slot) {
+			this.slot = slot;
+		}
+
+		@Override
+		double eval(double[] values) {
+			return values[slot];
+		}
+	}
+
+	static class Negate extends NumNode {
+		final NumNode node;
+
+		Negate(NumNode node) {
+			this.node = node;
+		}
+
+		@Override
+		double eval(double[] values) {
+			return -node.eval(values);
+		}
+	}
+
+	static class Arithmetic extends NumNode {
+		final char op;
+		final NumNode left, right;
+
+		Arithmetic(char op, NumNode left, NumNode right) {
+			this.op = op;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		double eval(double[] values) {
+			double l = left.eval(values);
+			double r = right.eval(values);
+			switch (op) {
+			case '+':
+				return l + r;
+			case '-':
+				return l - r;
+			case '*':
+				return l * r;
+			case '/':
+				return l / r;
+			default:
+				return l % r;
+			}
+		}
+	}
+
+	static class Compare extends BoolNode {
+		static final int EQ = 0, NE = 1, GT = 2, GE = 3, LT = 4, LE = 5;
+
+		final int op;
+		final NumNode left, right;
+
+		Compare(int op, NumNode left, NumNode right) {
+			this.op = op;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		boolean eval(double[] values) {
+			double l = left.eval(values);
+			double r = right.eval(values);
+			switch (op) {
+			case EQ:
+				return l == r;
+			case NE:
+				return l != r;
+			case GT:
+				return l > r;
+			case GE:
+				return l >= r;
+			case LT:
+				return l < r;
+			default:
+				return l <= r;
+			}
+		}
+	}
+
+	static class Not extends BoolNode {
+		final BoolNode node;
+
+		Not(BoolNode node) {
+			this.node = node;
+		}
+
+		@Override
+		boolean eval(double[] values) {
+			return !node.eval(values);
+		}
+	}
+
+	static class And extends BoolNode {
+		final BoolNode left, right;
+
+		And(BoolNode left, BoolNode right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		boolean eval(double[] values) {
+			return left.eval(values) && right.eval(values);
+		}
+	}
+
+	static class Or extends BoolNode {
+		final BoolNode left, right;
+
+		Or(BoolNode left, BoolNode right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		boolean eval(double[] values) {
+			return left.eval(values) || right.eval(values);
+		}
+	}
+}
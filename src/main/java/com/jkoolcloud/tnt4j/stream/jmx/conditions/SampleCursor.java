@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.conditions;
+
+import java.util.Arrays;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+
+import com.jkoolcloud.tnt4j.core.Activity;
+import com.jkoolcloud.tnt4j.core.PropertySnapshot;
+
+/**
+ * <p>
+ * This class provides reusable pool of {@link AttributeSample} instances used by single sampling thread, so sampling
+ * MBean attributes does not allocate sample per attribute. All samples of a sampling cycle share single cycle
+ * timestamp, sample timestamps are derived from it using monotonic time offset. Samples obtained since last
+ * {@link #rewind()} are cleared and reused after next rewind, so sampler shall rewind cursor once sample processing
+ * completes.
+ * </p>
+ * <p>
+ * Cursor is not thread safe.
+ * </p>
+ *
+ * @see AttributeSample
+ *
+ * @version $Revision: 1 $
+ */
+public class SampleCursor {
+	private AttributeSample[] pool = new AttributeSample[16];
+	private int next = 0;
+	private long baseUsec = 0;
+	private long baseNanos = 0;
+	private long cycle = 0;
+
+	/**
+	 * Start sampling using given cycle sequence number and timestamp, all pooled samples become available for reuse.
+	 *
+	 * @param cycle sampling cycle sequence number
+	 * @param cycleUsec cycle timestamp in microseconds
+	 * @param cycleNanos {@link System#nanoTime()} value taken with cycle timestamp
+	 * @return instance of this cursor
+	 */
+	public SampleCursor begin(long cycle, long cycleUsec, long cycleNanos) {
+		this.cycle = cycle;
+		baseUsec = cycleUsec;
+		baseNanos = cycleNanos;
+		return rewind();
+	}
+
+	/**
+	 * Make all pooled samples available for reuse. References held by samples obtained since last rewind are cleared,
+	 * so cursor does not retain sampled objects between samples.
+	 *
+	 * @return instance of this cursor
+	 */
+	public SampleCursor rewind() {
+		for (int i = 0; i < next; i++) {
+			pool[i].clear();
+		}
+		next = 0;
+		return this;
+	}
+
+	/**
+	 * Obtain pooled sample reset to sample a given MBean attribute.
+	 *
+	 * @param activity associated with current sample
+	 * @param snapshot snapshot sampled attribute value is stored to
+	 * @param serverConn MBean server connection instance
+	 * @param name MBean object name reference
+	 * @param ainfo MBean attribute info
+	 * @return pooled attribute sample
+	 */
+	public AttributeSample next(Activity activity, PropertySnapshot snapshot, MBeanServerConnection serverConn,
+			ObjectName name, MBeanAttributeInfo ainfo) {
+		if (next == pool.length) {
+			pool = Arrays.copyOf(pool, pool.length * 2);
+		}
+		AttributeSample sample = pool[next];
+		if (sample == null) {
+			sample = new AttributeSample(activity, snapshot, serverConn, name, ainfo);
+			pool[next] = sample;
+		}
+		next++;
+		return sample.reset(activity, snapshot, serverConn, name, ainfo, baseUsec, baseNanos, cycle);
+	}
+}
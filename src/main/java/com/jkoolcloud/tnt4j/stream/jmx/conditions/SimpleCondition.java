@@ -15,6 +15,9 @@
  */
 package com.jkoolcloud.tnt4j.stream.jmx.conditions;
 
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
 /**
  * <p>
  * This class defines a simple numeric condition that supports =, !=, >, >=, <, <= operators for a given JMX object,
@@ -26,12 +29,22 @@ package com.jkoolcloud.tnt4j.stream.jmx.conditions;
  * @version $Revision: 1 $
  * 
  */
-public class SimpleCondition implements AttributeCondition {
+public class SimpleCondition implements TargetedCondition {
+	private static final int OP_EQ = 0;
+	private static final int OP_NE = 1;
+	private static final int OP_GT = 2;
+	private static final int OP_GE = 3;
+	private static final int OP_LT = 4;
+	private static final int OP_LE = 5;
+
 	String name;
 	String objName;
+	ObjectName targetName;
 	String attrName;
 	Number value;
 	String op;
+	int opCode;
+	double threshold;
 
 	/**
 	 * Create a condition on a numeric object/attribute and a given numeric value by applying an operator.
@@ -40,13 +53,21 @@ public class SimpleCondition implements AttributeCondition {
 	 * @param attrName attribute name
 	 * @param value numeric value to apply operator
 	 * @param op operator to apply ( =, !=, >, >=, <, <=)
+	 * @throws IllegalArgumentException if operator is not supported
 	 */
 	public SimpleCondition(String objName, String attrName, Number value, String op) {
 		this.objName = objName;
 		this.attrName = attrName;
 		this.value = value;
 		this.op = op;
+		this.opCode = compile(op);
+		this.threshold = value.doubleValue();
 		this.name = attrName + "@" + objName;
+		try {
+			this.targetName = new ObjectName(objName);
+		} catch (MalformedObjectNameException exc) {
+			this.targetName = null;
+		}
 	}
 
 	@Override
@@ -59,39 +80,59 @@ public class SimpleCondition implements AttributeCondition {
 		return name;
 	}
 
+	@Override
+	public ObjectName getTargetName() {
+		return targetName;
+	}
+
+	@Override
+	public String getTargetAttribute() {
+		return attrName;
+	}
+
 	@Override
 	public boolean evaluate(AttributeSample sample) {
 		if (sample.getAttributeInfo().getName().equals(attrName)
 				&& sample.getObjetName().getCanonicalName().equals(objName)) {
-			if (op.endsWith("=")) {
-				return sample.get().equals(value);
-			} else if (op.endsWith("!=")) {
-				Object val = sample.get();
-				if (val instanceof Number) {
-					return ((Number) val).doubleValue() != value.doubleValue();
-				}
-			} else if (op.endsWith(">")) {
-				Object val = sample.get();
-				if (val instanceof Number) {
-					return ((Number) val).doubleValue() > value.doubleValue();
-				}
-			} else if (op.endsWith(">=")) {
-				Object val = sample.get();
-				if (val instanceof Number) {
-					return ((Number) val).doubleValue() >= value.doubleValue();
-				}
-			} else if (op.endsWith("<")) {
-				Object val = sample.get();
-				if (val instanceof Number) {
-					return ((Number) val).doubleValue() < value.doubleValue();
-				}
-			} else if (op.endsWith("<=")) {
-				Object val = sample.get();
-				if (val instanceof Number) {
-					return ((Number) val).doubleValue() <= value.doubleValue();
+			Object val = sample.get();
+			if (val instanceof Number) {
+				double num = ((Number) val).doubleValue();
+				switch (opCode) {
+				case OP_EQ:
+					return num == threshold;
+				case OP_NE:
+					return num != threshold;
+				case OP_GT:
+					return num > threshold;
+				case OP_GE:
+					return num >= threshold;
+				case OP_LT:
+					return num < threshold;
+				default:
+					return num <= threshold;
 				}
+			} else if (opCode == OP_EQ) {
+				return value.equals(val);
 			}
 		}
 		return false;
 	}
+
+	private static int compile(String op) {
+		String sop = op == null ? "" : op.trim();
+		if ("=".equals(sop) || "==".equals(sop)) {
+			return OP_EQ;
+		} else if ("!=".equals(sop)) {
+			return OP_NE;
+		} else if (">".equals(sop)) {
+			return OP_GT;
+		} else if (">=".equals(sop)) {
+			return OP_GE;
+		} else if ("<".equals(sop)) {
+			return OP_LT;
+		} else if ("<=".equals(sop)) {
+			return OP_LE;
+		}
+		throw new IllegalArgumentException("Unsupported operator '" + op + "'");
+	}
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.conditions;
+
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * This interface defines {@link AttributeCondition} declaring MBean and attribute it applies to. Sample handlers use
+ * declared target to index conditions and evaluate only conditions able to match a given attribute sample. Conditions
+ * not implementing this interface are evaluated for every attribute sample.
+ * </p>
+ *
+ * @see AttributeCondition
+ * @see SimpleCondition
+ * @version $Revision: 1 $
+ *
+ */
+public interface TargetedCondition extends AttributeCondition {
+	/**
+	 * Obtain MBean object name or object name pattern this condition applies to
+	 *
+	 * @return MBean object name or pattern, {@code null} if condition applies to any MBean
+	 */
+	ObjectName getTargetName();
+
+	/**
+	 * Obtain MBean attribute name this condition applies to
+	 *
+	 * @return attribute name, {@code null} if condition applies to any attribute
+	 */
+	String getTargetAttribute();
+}
@@ -15,7 +15,12 @@
  */
 package com.jkoolcloud.tnt4j.stream.jmx.core;
 
+import java.io.IOException;
+
+import javax.management.JMException;
+import javax.management.MBeanInfo;
 import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
 
 import com.jkoolcloud.tnt4j.stream.jmx.conditions.NestedHandler;
 
@@ -38,6 +43,17 @@ public interface SampleContext {
 	 */
 	MBeanServerConnection getMBeanServer();
 
+	/**
+	 * Obtain complete MBean info of a given MBean. Sampler retains only compact MBean metadata, so MBean info is
+	 * fetched from MBean server on every call.
+	 * 
+	 * @param name MBean object name
+	 * @return MBean info
+	 * @throws JMException if MBean is not registered or MBean info can't be obtained
+	 * @throws IOException if communication with MBean server fails
+	 */
+	MBeanInfo getMBeanInfo(ObjectName name) throws JMException, IOException;
+
 	/**
 	 * Reset all counters maintained by this context
 	 * 
@@ -45,6 +61,21 @@ public interface SampleContext {
 	 */
 	SampleContext resetCounters();
 
+	/**
+	 * Recompile sampling plans of all sampled MBeans from retained MBean metadata and MBean filters.
+	 * 
+	 * @return instance to the sampling context
+	 */
+	SampleContext rebuildPlans();
+
+	/**
+	 * Obtain point-in-time snapshot of all counters maintained by this context. Snapshot is taken without blocking
+	 * running sampling cycle.
+	 * 
+	 * @return sampling statistics snapshot
+	 */
+	SampleStats getStats();
+
 	/**
 	 * Obtain last error exception occurred during last sample
 	 * 
@@ -107,4 +138,116 @@ public interface SampleContext {
 	 * @return number of excluded MBean attributes
 	 */
 	long getExcludeAttrCount();
+
+	/**
+	 * Obtain number of total metrics emitted by delta mode sampling: metrics having changed values and all metrics of
+	 * full (keyframe) snapshots.
+	 * 
+	 * @return number of total emitted metrics, {@code 0} if delta mode is disabled
+	 */
+	long getTotalEmittedCount();
+
+	/**
+	 * Obtain number of total metrics suppressed by delta mode sampling, since their values did not change since last
+	 * sample.
+	 * 
+	 * @return number of total suppressed metrics, {@code 0} if delta mode is disabled
+	 */
+	long getTotalSuppressedCount();
+
+	/**
+	 * Obtain number of MBean attributes currently quarantined due to exceeded MBean sampling time budget.
+	 * 
+	 * @return number of quarantined MBean attributes
+	 */
+	long getQuarantinedAttrCount();
+
+	/**
+	 * Obtain number of total MBean attribute samples skipped due to exceeded cycle or MBean sampling time budget.
+	 * 
+	 * @return number of total skipped MBean attribute samples
+	 */
+	long getTotalOverdueCount();
+
+	/**
+	 * Obtain last sampling latency of a given MBean attribute. Latency is tracked only when MBean sampling time budget
+	 * is defined.
+	 * 
+	 * @param name MBean object name
+	 * @param attrName MBean attribute name
+	 * @return attribute sampling latency in microseconds, {@code -1} if latency is not tracked
+	 */
+	long getAttributeLatencyUsec(ObjectName name, String attrName);
+
+	/**
+	 * Obtain number of total sampling cycles which took longer than sampling period.
+	 * 
+	 * @return number of total sampling cycle overruns
+	 */
+	long getTotalOverrunCount();
+
+	/**
+	 * Obtain number of total sampling cycles skipped due to overruns, see {@link SchedulePolicy#SKIP_ON_OVERRUN}.
+	 * 
+	 * @return number of total skipped sampling cycles
+	 */
+	long getTotalSkipCount();
+
+	/**
+	 * Obtain time in microseconds last sampling cycle was started past its scheduled start time.
+	 * 
+	 * @return last sampling cycle scheduling lag in microseconds
+	 */
+	long getLastScheduleLagUsec();
+
+	/**
+	 * Obtain number of MBean registration and unregistration events queued for resolution.
+	 * 
+	 * @return number of queued MBean registration events
+	 */
+	int getRegistrationQueueDepth();
+
+	/**
+	 * Obtain time in microseconds last resolved MBean registration or unregistration event has spent since being
+	 * queued.
+	 * 
+	 * @return last MBean registration event resolution latency in microseconds
+	 */
+	long getLastRegistrationLatencyUsec();
+
+	/**
+	 * Obtain number of total MBean registration and unregistration events merged or cancelled out while queued.
+	 * 
+	 * @return number of total coalesced MBean registration events
+	 */
+	long getTotalCoalescedCount();
+
+	/**
+	 * Obtain number of total MBean registration and unregistration notifications received from MBean server.
+	 * 
+	 * @return number of total received MBean registration notifications
+	 */
+	long getTotalNotificationCount();
+
+	/**
+	 * Obtain number of total received MBean registration and unregistration notifications rejected by MBean filters.
+	 * These notifications could not be filtered out by MBean server.
+	 * 
+	 * @return number of total rejected MBean registration notifications
+	 */
+	long getTotalRejectedNotificationCount();
+
+	/**
+	 * Obtain number of total MBean info revalidations of sampled MBeans.
+	 * 
+	 * @return number of total MBean info revalidations
+	 */
+	long getTotalInfoRefreshCount();
+
+	/**
+	 * Obtain number of total sampled MBean info changes found by MBean info revalidations.
+	 * 
+	 * @return number of total MBean info changes
+	 */
+	long getTotalInfoChangeCount();
 }
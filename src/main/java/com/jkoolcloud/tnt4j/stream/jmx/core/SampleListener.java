@@ -29,6 +29,20 @@ import com.jkoolcloud.tnt4j.core.Activity;
  * This interface provides a way to get call backs on every sample:pre, during, post
  * each sample.
  * </p>
+ * <p>
+ * {@link AttributeSample} instances passed to listener are reused by sampler once
+ * attribute sampling completes. Use {@link AttributeSample#copy()} to retain sample.
+ * </p>
+ * <p>
+ * When parallel sampling is enabled (see {@code com.jkoolcloud.tnt4j.stream.jmx.parallelism}),
+ * attribute sample callbacks {@link #pre(SampleContext, AttributeSample)},
+ * {@link #post(SampleContext, AttributeSample)} and {@link #error(SampleContext, AttributeSample)}
+ * are invoked concurrently by several sampling worker threads, so listener state shared between
+ * samples must be thread safe. {@link #register(SampleContext, ObjectName)},
+ * {@link #unregister(SampleContext, ObjectName)} and {@link #error(SampleContext, Throwable)}
+ * may also be invoked by background MBean registration threads, concurrently with sampling.
+ * Activity callbacks are invoked by single thread.
+ * </p>
  * 
  * @see Sampler
  * @see NestedHandler
@@ -57,7 +71,9 @@ public interface SampleListener {
 	 * This method is called before each attribute is sampled.
 	 * Throw a runtime exception if you want all further samples to halt.
 	 * Set {@link AttributeSample#excludeNext(boolean)} to true to skip 
-	 * sampling this attribute.
+	 * sampling this attribute. Exclusion applies to current sample only:
+	 * this method is called again for the attribute on every sample, so
+	 * listener keeping attribute exclusions decides when they end.
 	 * 
 	 * @param context current sample context
 	 * @param sample current attribute sample
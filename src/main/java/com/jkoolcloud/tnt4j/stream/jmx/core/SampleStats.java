@@ -0,0 +1,308 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.core;
+
+/**
+ * <p>
+ * This class provides immutable snapshot of sampling statistics maintained by {@link SampleContext}. Every counter is
+ * read exactly once when snapshot is taken, so values reported from a single snapshot do not change while being
+ * reported. Counters are read one after another while sampling, worker and registration threads keep updating them,
+ * and are reset one by one by {@link SampleContext#resetCounters()}: every value is individually atomic, but values
+ * are not mutually consistent, e.g. total and last cycle counts may be taken at slightly different moments.
+ * </p>
+ *
+ * @see SampleContext#getStats()
+ *
+ * @version $Revision: 1 $
+ */
+public class SampleStats {
+	private final long timeStamp;
+	private final long sampleCount;
+	private final long mbeanCount;
+	private final long excludeAttrCount;
+	private final long totalMetricCount;
+	private final long lastMetricCount;
+	private final long noopCount;
+	private final long errorCount;
+	private final long lastSampleUsec;
+	private final long emittedCount;
+	private final long suppressedCount;
+	private final long quarantinedAttrCount;
+	private final long overdueCount;
+	private final long overrunCount;
+	private final long skipCount;
+	private final long lastLagUsec;
+	private final long registrationQueueDepth;
+	private final long registrationLatencyUsec;
+	private final long coalescedCount;
+	private final long notificationCount;
+	private final long rejectedNotificationCount;
+	private final long infoRefreshCount;
+	private final long infoChangeCount;
+
+	/**
+	 * Create statistics snapshot reading current counter values of a given sample context.
+	 *
+	 * @param context sample context to read counters from
+	 */
+	public SampleStats(SampleContext context) {
+		this.timeStamp = System.currentTimeMillis();
+		this.sampleCount = context.getSampleCount();
+		this.mbeanCount = context.getMBeanCount();
+		this.excludeAttrCount = context.getExcludeAttrCount();
+		this.totalMetricCount = context.getTotalMetricCount();
+		this.lastMetricCount = context.getLastMetricCount();
+		this.noopCount = context.getTotalNoopCount();
+		this.errorCount = context.getTotalErrorCount();
+		this.lastSampleUsec = context.getLastSampleUsec();
+		this.emittedCount = context.getTotalEmittedCount();
+		this.suppressedCount = context.getTotalSuppressedCount();
+		this.quarantinedAttrCount = context.getQuarantinedAttrCount();
+		this.overdueCount = context.getTotalOverdueCount();
+		this.overrunCount = context.getTotalOverrunCount();
+		this.skipCount = context.getTotalSkipCount();
+		this.lastLagUsec = context.getLastScheduleLagUsec();
+		this.registrationQueueDepth = context.getRegistrationQueueDepth();
+		this.registrationLatencyUsec = context.getLastRegistrationLatencyUsec();
+		this.coalescedCount = context.getTotalCoalescedCount();
+		this.notificationCount = context.getTotalNotificationCount();
+		this.rejectedNotificationCount = context.getTotalRejectedNotificationCount();
+		this.infoRefreshCount = context.getTotalInfoRefreshCount();
+		this.infoChangeCount = context.getTotalInfoChangeCount();
+	}
+
+	/**
+	 * Obtain time in milliseconds when this snapshot was taken
+	 *
+	 * @return snapshot time in milliseconds
+	 */
+	public long getTimeStamp() {
+		return timeStamp;
+	}
+
+	/**
+	 * Obtain number of executed samples
+	 *
+	 * @return number of executed samples
+	 */
+	public long getSampleCount() {
+		return sampleCount;
+	}
+
+	/**
+	 * Obtain number of sampled MBeans
+	 *
+	 * @return number of sampled MBeans
+	 */
+	public long getMBeanCount() {
+		return mbeanCount;
+	}
+
+	/**
+	 * Obtain number of excluded MBean attributes
+	 *
+	 * @return number of excluded MBean attributes
+	 */
+	public long getExcludeAttrCount() {
+		return excludeAttrCount;
+	}
+
+	/**
+	 * Obtain number of total metrics sampled for all samples
+	 *
+	 * @return number of total metrics sampled for all samples
+	 */
+	public long getTotalMetricCount() {
+		return totalMetricCount;
+	}
+
+	/**
+	 * Obtain number of samples metrics during last sample
+	 *
+	 * @return number of samples metrics during last sample
+	 */
+	public long getLastMetricCount() {
+		return lastMetricCount;
+	}
+
+	/**
+	 * Obtain number of total skipped/ignored samples
+	 *
+	 * @return number of total skipped/ignored samples
+	 */
+	public long getTotalNoopCount() {
+		return noopCount;
+	}
+
+	/**
+	 * Obtain number of total failed samples
+	 *
+	 * @return number of total failed samples
+	 */
+	public long getTotalErrorCount() {
+		return errorCount;
+	}
+
+	/**
+	 * Obtain time in microseconds it took to take a last sample
+	 *
+	 * @return time in microseconds it took to take a last sample
+	 */
+	public long getLastSampleUsec() {
+		return lastSampleUsec;
+	}
+
+	/**
+	 * Obtain number of total metrics emitted by delta mode sampling
+	 *
+	 * @return number of total emitted metrics
+	 */
+	public long getTotalEmittedCount() {
+		return emittedCount;
+	}
+
+	/**
+	 * Obtain number of total metrics suppressed by delta mode sampling
+	 *
+	 * @return number of total suppressed metrics
+	 */
+	public long getTotalSuppressedCount() {
+		return suppressedCount;
+	}
+
+	/**
+	 * Obtain number of MBean attributes quarantined due to exceeded MBean sampling time budget
+	 *
+	 * @return number of quarantined MBean attributes
+	 */
+	public long getQuarantinedAttrCount() {
+		return quarantinedAttrCount;
+	}
+
+	/**
+	 * Obtain number of total MBean attribute samples skipped due to exceeded sampling time budget
+	 *
+	 * @return number of total skipped MBean attribute samples
+	 */
+	public long getTotalOverdueCount() {
+		return overdueCount;
+	}
+
+	/**
+	 * Obtain number of total sampling cycles which took longer than sampling period
+	 *
+	 * @return number of total sampling cycle overruns
+	 */
+	public long getTotalOverrunCount() {
+		return overrunCount;
+	}
+
+	/**
+	 * Obtain number of total sampling cycles skipped due to overruns
+	 *
+	 * @return number of total skipped sampling cycles
+	 */
+	public long getTotalSkipCount() {
+		return skipCount;
+	}
+
+	/**
+	 * Obtain time in microseconds last sampling cycle was started past its scheduled start time
+	 *
+	 * @return last sampling cycle scheduling lag in microseconds
+	 */
+	public long getLastScheduleLagUsec() {
+		return lastLagUsec;
+	}
+
+	/**
+	 * Obtain number of MBean registration and unregistration events queued for resolution
+	 *
+	 * @return number of queued MBean registration events
+	 */
+	public long getRegistrationQueueDepth() {
+		return registrationQueueDepth;
+	}
+
+	/**
+	 * Obtain time in microseconds last resolved MBean registration event has spent since being queued
+	 *
+	 * @return last MBean registration event resolution latency in microseconds
+	 */
+	public long getLastRegistrationLatencyUsec() {
+		return registrationLatencyUsec;
+	}
+
+	/**
+	 * Obtain number of total MBean registration events merged or cancelled out while queued
+	 *
+	 * @return number of total coalesced MBean registration events
+	 */
+	public long getTotalCoalescedCount() {
+		return coalescedCount;
+	}
+
+	/**
+	 * Obtain number of total MBean registration notifications received from MBean server
+	 *
+	 * @return number of total received MBean registration notifications
+	 */
+	public long getTotalNotificationCount() {
+		return notificationCount;
+	}
+
+	/**
+	 * Obtain number of total received MBean registration notifications rejected by MBean filters
+	 *
+	 * @return number of total rejected MBean registration notifications
+	 */
+	public long getTotalRejectedNotificationCount() {
+		return rejectedNotificationCount;
+	}
+
+	/**
+	 * Obtain number of total MBean info revalidations of sampled MBeans
+	 *
+	 * @return number of total MBean info revalidations
+	 */
+	public long getTotalInfoRefreshCount() {
+		return infoRefreshCount;
+	}
+
+	/**
+	 * Obtain number of total sampled MBean info changes found by MBean info revalidations
+	 *
+	 * @return number of total MBean info changes
+	 */
+	public long getTotalInfoChangeCount() {
+		return infoChangeCount;
+	}
+
+	@Override
+	public String toString() {
+		return "SampleStats{sample.count=" + sampleCount + ", mbean.count=" + mbeanCount + ", exclude.count="
+				+ excludeAttrCount + ", total.metric.count=" + totalMetricCount + ", last.metric.count="
+				+ lastMetricCount + ", noop.count=" + noopCount + ", error.count=" + errorCount
+				+ ", sample.time.usec=" + lastSampleUsec + ", emitted.count=" + emittedCount + ", suppressed.count="
+				+ suppressedCount + ", quarantined.attr.count=" + quarantinedAttrCount + ", overdue.count="
+				+ overdueCount + ", overrun.count=" + overrunCount + ", skip.count=" + skipCount
+				+ ", schedule.lag.usec=" + lastLagUsec + ", registration.queue.depth=" + registrationQueueDepth
+				+ ", registration.latency.usec=" + registrationLatencyUsec + ", coalesced.count=" + coalescedCount
+				+ ", notification.count=" + notificationCount + ", rejected.notification.count="
+				+ rejectedNotificationCount + ", info.refresh.count=" + infoRefreshCount + ", info.change.count="
+				+ infoChangeCount + "}";
+	}
+}
@@ -128,6 +128,15 @@ public interface Sampler extends NestedHandler<Sampler, SampleListener>, Runnabl
 	 */
 	Sampler setSchedule(String incFilter, String excFilter, long period, TimeUnit tunit) throws IOException;
 
+	/**
+	 * Set policy used to schedule sampling cycles, which defines how cycles are scheduled when sampling cycle takes
+	 * longer than sampling period.
+	 * 
+	 * @param policy sampling cycles schedule policy
+	 * @throws IllegalStateException if setSchedule is not called first
+	 */
+	Sampler setSchedulePolicy(SchedulePolicy policy);
+
 	/**
 	 * Register a condition/action pair which will be evaluated every sampling interval.
 	 *
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.core;
+
+/**
+ * <p>
+ * This enumeration defines how sampling cycles are scheduled when sampling cycle takes longer than sampling period
+ * (overruns).
+ * </p>
+ *
+ * @see Sampler#setSchedulePolicy(SchedulePolicy)
+ *
+ * @version $Revision: 1 $
+ */
+public enum SchedulePolicy {
+	/**
+	 * Cycles are started at fixed rate: cycles delayed by overrun are started immediately one after another until
+	 * schedule is caught up.
+	 */
+	FIXED_RATE,
+
+	/**
+	 * Every cycle is started after sampling period elapses since previous cycle has completed.
+	 */
+	FIXED_DELAY,
+
+	/**
+	 * Cycles are started at fixed rate: cycles which start time has passed while previous cycle was running are
+	 * skipped.
+	 */
+	SKIP_ON_OVERRUN
+}
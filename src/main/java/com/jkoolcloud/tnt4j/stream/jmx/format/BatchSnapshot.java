@@ -0,0 +1,173 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.format;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.jkoolcloud.tnt4j.core.Property;
+import com.jkoolcloud.tnt4j.core.PropertySnapshot;
+
+/**
+ * <p>
+ * This class defines snapshot view of a range of {@link SampleBatch} rows. Formatters aware of batch format read rows
+ * directly from batch columns, while read accessors {@link #getSnapshot()}, {@link #get(Object)}, {@link #size()}
+ * and {@link #toString()} adapt rows to regular snapshot properties on demand for other consumers, so
+ * {@link Property} instances are created only for such consumers.
+ * </p>
+ * <p>
+ * Properties added to this snapshot while its rows are the last rows of batch are written straight into batch columns
+ * as new rows, see {@link SampleBatch#newSnapshot(String, String)}. Properties added once other rows follow snapshot
+ * rows are kept as regular snapshot properties, following batch rows.
+ * </p>
+ * <p>
+ * Sampler writes sampled values straight into batch when MBeans are sampled sequentially. Snapshots sampled by
+ * parallel sampling workers or filtered by delta mode are built as regular snapshots and copied to batch, so batch
+ * does not reduce memory used by delta mode.
+ * </p>
+ *
+ * @see SampleBatch
+ *
+ * @version $Revision: 1 $
+ */
+public class BatchSnapshot extends PropertySnapshot {
+	private final SampleBatch batch;
+	private final int start;
+	private int end;
+
+	/**
+	 * Create snapshot view of batch rows.
+	 *
+	 * @param batch batch containing snapshot rows
+	 * @param category snapshot category
+	 * @param name snapshot name
+	 * @param start index of first snapshot row
+	 * @param end index following last snapshot row
+	 */
+	BatchSnapshot(SampleBatch batch, String category, String name, int start, int end) {
+		super(category, name);
+		this.batch = batch;
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	 * Obtain batch containing snapshot rows.
+	 *
+	 * @return batch containing snapshot rows
+	 */
+	public SampleBatch getBatch() {
+		return batch;
+	}
+
+	/**
+	 * Obtain index of first snapshot row.
+	 *
+	 * @return index of first snapshot row
+	 */
+	public int getStart() {
+		return start;
+	}
+
+	/**
+	 * Obtain index following last snapshot row.
+	 *
+	 * @return index following last snapshot row
+	 */
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * Obtain properties added to this snapshot, which are not batch rows.
+	 *
+	 * @return collection of snapshot properties
+	 */
+	public Collection<Property> getExtraProperties() {
+		return super.getSnapshot();
+	}
+
+	@Override
+	public int size() {
+		return end - start + super.size();
+	}
+
+	/**
+	 * Add property to this snapshot. While snapshot rows are the last rows of batch, property value is written straight
+	 * into batch columns. Otherwise property is kept as regular snapshot property.
+	 *
+	 * @param key property key
+	 * @param value property value
+	 * @return instance of this snapshot
+	 */
+	public PropertySnapshot add(Object key, Object value) {
+		String pKey = String.valueOf(key);
+		if (end == batch.size()) {
+			batch.add(getName(), pKey, value);
+			end++;
+		} else {
+			add(new Property(pKey, value));
+		}
+		return this;
+	}
+
+	/**
+	 * Add property to this snapshot.
+	 *
+	 * @param key property key
+	 * @param value property value
+	 * @return instance of this snapshot
+	 *
+	 * @see #add(Object, Object)
+	 */
+	public PropertySnapshot add(String key, Object value) {
+		return add((Object) key, value);
+	}
+
+	/**
+	 * Obtain snapshot property having a given key. Batch rows are searched first, then properties added to this
+	 * snapshot.
+	 *
+	 * @param key property key
+	 * @return snapshot property, {@code null} if snapshot has no property with a given key
+	 */
+	public Property get(Object key) {
+		for (int row = start; row < end; row++) {
+			if (batch.getKey(row).getPath().equals(key)) {
+				return batch.getProperty(row);
+			}
+		}
+		return key instanceof String ? super.get((String) key) : null;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{category=" + getCategory() + ", name=" + getName() + ", rows="
+				+ (end - start) + ", properties=" + getSnapshot() + "}";
+	}
+
+	@Override
+	public Collection<Property> getSnapshot() {
+		Collection<Property> extra = super.getSnapshot();
+		List<Property> props = new ArrayList<Property>(end - start + extra.size());
+		for (int row = start; row < end; row++) {
+			props.add(batch.getProperty(row));
+		}
+		props.addAll(extra);
+		return props;
+	}
+}
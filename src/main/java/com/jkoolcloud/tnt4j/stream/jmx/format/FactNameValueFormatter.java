@@ -59,11 +59,15 @@ public class FactNameValueFormatter extends DefaultFormatter {
 	protected static final Pattern REP_CFG_PATTERN = Pattern
 			.compile("\"(\\s*([^\"\\\\]|\\\\.)+\\s*)\"->\"(\\s*([^\"\\\\]|\\\\.)+\\s*)\"");
 
-	protected boolean serializeSimpleTypesOnly = false;
+	protected boolean serializeSimpleTypesOnly = SimpleTypes.isSimplesOnly();
 
 	protected Map<String, String> keyReplacements = new HashMap<>();
 	protected Map<String, String> valueReplacements = new HashMap<>();
 
+	protected MetricKeys metricKeys = MetricKeys.getInstance();
+	private final int keysSlot = MetricKey.getSlot(getClass());
+	private volatile Object keysOwner = new Object();
+
 	public FactNameValueFormatter() {
 		super("time.stamp={2},level={1},source={3},msg=\"{0}\"");
 	}
@@ -226,17 +230,108 @@ public class FactNameValueFormatter extends DefaultFormatter {
 	 * @return appended string builder reference
 	 */
 	protected StringBuilder toString(StringBuilder nvString, Snapshot snap) {
-		Collection<Property> list = getProperties(snap);
-		String sName = getSnapNameStr(snap.getName());
+		if (snap instanceof BatchSnapshot) {
+			return toString(nvString, (BatchSnapshot) snap);
+		}
+		return toString(nvString, snap.getName(), getProperties(snap));
+	}
+
+	/**
+	 * Makes string representation of snapshot properties and appends it to provided string builder.
+	 *
+	 * @param nvString string builder instance to append
+	 * @param snapName snapshot name
+	 * @param list collection of snapshot properties
+	 * @return appended string builder reference
+	 */
+	protected StringBuilder toString(StringBuilder nvString, String snapName, Collection<Property> list) {
+		String sName = getSnapNameKey(snapName);
 		for (Property p : list) {
 			Object value = p.getValue();
 
-			nvString.append(getKeyStr(sName, p.getKey()));
+			nvString.append(getKeyStr(sName, metricKeys.get(snapName, p.getKey())));
 			nvString.append(EQ).append(getValueStr(value)).append(FIELD_SEP);
 		}
 		return nvString;
 	}
 
+	/**
+	 * Makes string representation of batch snapshot and appends it to provided string builder. Numeric and boolean
+	 * values are read from batch columns without boxing.
+	 *
+	 * @param nvString string builder instance to append
+	 * @param snap batch snapshot instance to represent as string
+	 * @return appended string builder reference
+	 *
+	 * @see #getRows(BatchSnapshot)
+	 */
+	protected StringBuilder toString(StringBuilder nvString, BatchSnapshot snap) {
+		SampleBatch batch = snap.getBatch();
+		String sName = getSnapNameKey(snap.getName());
+		for (int row : getRows(snap)) {
+			nvString.append(getKeyStr(sName, batch.getKey(row)));
+			String valStr = batch.getPrimitiveStr(row);
+			nvString.append(EQ).append(valStr == null ? getValueStr(batch.getObject(row)) : decorateValueStr(valStr))
+					.append(FIELD_SEP);
+		}
+		Collection<Property> extra = snap.getExtraProperties();
+		if (!extra.isEmpty()) {
+			toString(nvString, snap.getName(), extra);
+		}
+		return nvString;
+	}
+
+	/**
+	 * Returns indexes of batch rows belonging to batch snapshot, in order rows are formatted.
+	 *
+	 * @param snap batch snapshot instance
+	 * @return array of batch row indexes
+	 */
+	protected int[] getRows(BatchSnapshot snap) {
+		int[] rows = new int[snap.getEnd() - snap.getStart()];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = snap.getStart() + i;
+		}
+		return rows;
+	}
+
+	/**
+	 * Returns decorated string representation of metric key, rendered once and cached by interned {@link MetricKey}.
+	 *
+	 * @param sName decorated snapshot name
+	 * @param key interned metric key
+	 * @return decorated string representation of metric key
+	 *
+	 * @see #getKeyStr(String, String)
+	 */
+	protected String getKeyStr(String sName, MetricKey key) {
+		Object owner = keysOwner;
+		String keyStr = key.getRendered(keysSlot, owner);
+		if (keyStr == null) {
+			keyStr = key.setRendered(keysSlot, owner, getKeyStr(sName, key.getPath()));
+		}
+		return keyStr;
+	}
+
+	/**
+	 * Returns decorated string representation of snapshot name, rendered once and cached by interned {@link MetricKey}
+	 * of snapshot.
+	 *
+	 * @param snapName snapshot name
+	 * @return decorated string representation of snapshot name
+	 *
+	 * @see #getSnapNameStr(String)
+	 */
+	protected String getSnapNameKey(String snapName) {
+		Object owner = keysOwner;
+		MetricKey key = metricKeys.get(snapName, null);
+		String sName = key.getRendered(keysSlot, owner);
+		if (sName == null) {
+			sName = key.setRendered(keysSlot, owner, getSnapNameStr(snapName));
+		}
+		return sName;
+	}
+
 	/**
 	 * Determine if a given value can be meaningfully serialized to string.
 	 *
@@ -244,9 +339,7 @@ public class FactNameValueFormatter extends DefaultFormatter {
 	 * @return {@code true} if a given value can be serialized to string meaningfully, {@code false} - otherwise
 	 */
 	protected static boolean isSerializable(Object value) {
-		return value == null || value.getClass().isPrimitive() || value.getClass().isEnum() || value instanceof String
-				|| value instanceof Number || value instanceof Boolean || value instanceof Character;
-
+		return SimpleTypes.isSimple(value);
 	}
 
 	/**
@@ -286,18 +379,14 @@ public class FactNameValueFormatter extends DefaultFormatter {
 	 * Makes decorated string representation of argument attribute value.
 	 * <p>
 	 * If property {@link #serializeSimpleTypesOnly} is set to {@code true} - validates if value can be represented as
-	 * simple type. If no, then actual value is replaced by dummy string {@code "<unsupported value type>"}.
-	 * <p>
-	 * Value representation string containing {@code "\n"} or {@code "\r"} symbols gets those replaced by escaped
-	 * representations {@code "\\n"} amd {@code "\\r"}.
-	 * <p>
-	 * Value representation string gets symbols replaced using ones defined in {@link #valueReplacements} map.
+	 * simple type. If no, then actual value is replaced by dummy string {@code "<unsupported value type>"}. Property
+	 * defaults to shared {@link SimpleTypes#isSimplesOnly()} setting.
 	 *
 	 * @param value attribute value
 	 * @return decorated string representation of attribute value
 	 *
 	 * @see #toString(Object)
-	 * @see #initDefaultValueReplacements()
+	 * @see #decorateValueStr(String)
 	 */
 	protected String getValueStr(Object value) {
 		String valStr;
@@ -310,6 +399,23 @@ public class FactNameValueFormatter extends DefaultFormatter {
 			valStr = toString(value);
 		}
 
+		return decorateValueStr(valStr);
+	}
+
+	/**
+	 * Decorates string representation of attribute value.
+	 * <p>
+	 * Value representation string containing {@code "\n"} or {@code "\r"} symbols gets those replaced by escaped
+	 * representations {@code "\\n"} amd {@code "\\r"}.
+	 * <p>
+	 * Value representation string gets symbols replaced using ones defined in {@link #valueReplacements} map.
+	 *
+	 * @param valStr string representation of attribute value
+	 * @return decorated string representation of attribute value
+	 *
+	 * @see #initDefaultValueReplacements()
+	 */
+	protected String decorateValueStr(String valStr) {
 		valStr = valStr.replace(LF, "\\n").replace(CR, "\\r");
 		for (Map.Entry<String, String> vre : valueReplacements.entrySet()) {
 			valStr = valStr.replace(vre.getKey(), vre.getValue());
@@ -340,6 +446,10 @@ public class FactNameValueFormatter extends DefaultFormatter {
 		super.setConfiguration(settings);
 
 		serializeSimpleTypesOnly = Utils.getBoolean("SerializeSimplesOnly", settings, serializeSimpleTypesOnly);
+		if (serializeSimpleTypesOnly) {
+			// let samplers skip attributes which values can't be serialized
+			SimpleTypes.setSimplesOnly(true);
+		}
 
 		String kReplacements = Utils.getString("KeyReplacements", settings, "");
 
@@ -363,6 +473,9 @@ public class FactNameValueFormatter extends DefaultFormatter {
 				valueReplacements.put(m.group(1), m.group(3));
 			}
 		}
+
+		// drop metric keys rendered using previous configuration
+		keysOwner = new Object();
 	}
 
 	/**
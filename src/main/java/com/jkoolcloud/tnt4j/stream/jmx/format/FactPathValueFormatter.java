@@ -64,8 +64,8 @@ public class FactPathValueFormatter extends FactNameValueFormatter {
 			snapshotComparator = new Comparator<Snapshot>() {
 				@Override
 				public int compare(Snapshot s1, Snapshot s2) {
-					String s1Path = getSnapNameStr(s1.getName());
-					String s2Path = getSnapNameStr(s2.getName());
+					String s1Path = getSnapNameKey(s1.getName());
+					String s2Path = getSnapNameKey(s2.getName());
 
 					return s1Path.compareTo(s2Path);
 				}
@@ -86,6 +86,25 @@ public class FactPathValueFormatter extends FactNameValueFormatter {
 		return Arrays.asList(pa);
 	}
 
+	@Override
+	protected int[] getRows(final BatchSnapshot snap) {
+		int[] rows = super.getRows(snap);
+		Integer[] ra = new Integer[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			ra[i] = rows[i];
+		}
+		Arrays.sort(ra, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer r1, Integer r2) {
+				return snap.getBatch().getKey(r1).getPath().compareTo(snap.getBatch().getKey(r2).getPath());
+			}
+		});
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = ra[i];
+		}
+		return rows;
+	}
+
 	private Comparator<Property> getPropertyComparator() {
 		if (propertyComparator == null) {
 			propertyComparator = new Comparator<Property>() {
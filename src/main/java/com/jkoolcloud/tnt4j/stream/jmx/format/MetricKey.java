@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.format;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * This class defines interned metric key: snapshot (MBean canonical object name) and attribute path pair obtained from
+ * {@link MetricKeys} dictionary. Key holds its rendered forms produced by formatters, so metric key string is built
+ * once and reused while MBean is registered.
+ * </p>
+ * <p>
+ * Every formatter kind (formatter class) renders keys to own rendering slot, obtained by {@link #getSlot(Class)}, so
+ * several formatters in use do not overwrite each other renderings. First {@value #MAX_SLOTS} formatter kinds get
+ * own slots, further kinds share last slot.
+ * </p>
+ *
+ * @see MetricKeys
+ *
+ * @version $Revision: 1 $
+ */
+public class MetricKey {
+	/**
+	 * Maximal number of rendering slots kept by key.
+	 */
+	public static final int MAX_SLOTS = 4;
+
+	private static final ConcurrentHashMap<Class<?>, Integer> SLOTS = new ConcurrentHashMap<Class<?>, Integer>();
+
+	private final String snapName;
+	private final String path;
+	private final AtomicReferenceArray<Rendering> renderings = new AtomicReferenceArray<Rendering>(MAX_SLOTS);
+
+	/**
+	 * Create metric key.
+	 *
+	 * @param snapName snapshot name
+	 * @param path attribute path, {@code null} - for key of snapshot itself
+	 */
+	MetricKey(String snapName, String path) {
+		this.snapName = snapName;
+		this.path = path;
+	}
+
+	/**
+	 * Obtain snapshot name of this key.
+	 *
+	 * @return snapshot name
+	 */
+	public String getSnapName() {
+		return snapName;
+	}
+
+	/**
+	 * Obtain attribute path of this key.
+	 *
+	 * @return attribute path, {@code null} - for key of snapshot itself
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * Obtain rendering slot of a given formatter kind.
+	 *
+	 * @param kind formatter class
+	 * @return rendering slot index
+	 */
+	public static int getSlot(Class<?> kind) {
+		Integer slot = SLOTS.get(kind);
+		if (slot == null) {
+			synchronized (SLOTS) {
+				slot = SLOTS.get(kind);
+				if (slot == null) {
+					slot = Math.min(SLOTS.size(), MAX_SLOTS - 1);
+					SLOTS.put(kind, slot);
+				}
+			}
+		}
+		return slot;
+	}
+
+	/**
+	 * Obtain rendered form of this key produced by a given formatter.
+	 *
+	 * @param slot rendering slot of formatter kind
+	 * @param owner formatter rendered form belongs to
+	 * @return rendered form, {@code null} - if key was not rendered by given formatter
+	 *
+	 * @see #getSlot(Class)
+	 */
+	public String getRendered(int slot, Object owner) {
+		Rendering r = renderings.get(slot);
+		return r != null && r.owner == owner ? r.value : null;
+	}
+
+	/**
+	 * Set rendered form of this key produced by a given formatter.
+	 *
+	 * @param slot rendering slot of formatter kind
+	 * @param owner formatter rendered form belongs to
+	 * @param value rendered form
+	 * @return rendered form
+	 *
+	 * @see #getSlot(Class)
+	 */
+	public String setRendered(int slot, Object owner, String value) {
+		renderings.set(slot, new Rendering(owner, value));
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		return path == null ? snapName : snapName + FactNameValueFormatter.PATH_DELIM + path;
+	}
+
+	/**
+	 * Rendered form of key bound to formatter produced it.
+	 */
+	private static class Rendering {
+		final Object owner;
+		final String value;
+
+		Rendering(Object owner, String value) {
+			this.owner = owner;
+			this.value = value;
+		}
+	}
+}
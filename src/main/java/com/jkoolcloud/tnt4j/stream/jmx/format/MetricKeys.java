@@ -0,0 +1,151 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.format;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.jkoolcloud.tnt4j.core.OpLevel;
+import com.jkoolcloud.tnt4j.sink.DefaultEventSinkFactory;
+import com.jkoolcloud.tnt4j.sink.EventSink;
+
+/**
+ * <p>
+ * This class provides bounded concurrent dictionary of interned {@link MetricKey} instances, keyed by snapshot name
+ * (MBean canonical object name) and attribute path. Formatters use dictionary keys to render metric key strings once,
+ * samplers evict keys of unregistered MBeans. When dictionary is full, new keys are not interned: every lookup of
+ * such key returns new key instance, which string gets rendered on every use. Such lookups are counted, see
+ * {@link #getOverflowCount()}, and warning is logged once dictionary gets full first time.
+ * </p>
+ *
+ * @see MetricKey
+ * @see FactNameValueFormatter
+ *
+ * @version $Revision: 1 $
+ */
+public class MetricKeys {
+	/**
+	 * System property name to define maximal number of interned metric keys.
+	 */
+	public static final String PROP_METRIC_KEYS_SIZE = "com.jkoolcloud.tnt4j.stream.jmx.metric.keys.size";
+	public static final int DEFAULT_METRIC_KEYS_SIZE = 100000;
+
+	private static final EventSink LOGGER = DefaultEventSinkFactory.defaultEventSink(MetricKeys.class);
+	private static final MetricKeys INSTANCE = new MetricKeys(
+			Integer.getInteger(PROP_METRIC_KEYS_SIZE, DEFAULT_METRIC_KEYS_SIZE));
+	private static final String SNAP_PATH = "";
+
+	private final int maxSize;
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicLong overflowCount = new AtomicLong();
+	private final ConcurrentHashMap<String, ConcurrentHashMap<String, MetricKey>> keys =
+			new ConcurrentHashMap<String, ConcurrentHashMap<String, MetricKey>>(89);
+
+	/**
+	 * Create metric keys dictionary.
+	 *
+	 * @param maxSize maximal number of interned keys
+	 */
+	public MetricKeys(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Obtain metric keys dictionary shared by samplers and formatters. Dictionary size is defined by system property
+	 * {@value #PROP_METRIC_KEYS_SIZE}.
+	 *
+	 * @return shared metric keys dictionary
+	 */
+	public static MetricKeys getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Obtain metric key of a given snapshot and attribute path.
+	 *
+	 * @param snapName snapshot name
+	 * @param path attribute path, {@code null} - for key of snapshot itself
+	 * @return interned metric key, or new key instance if dictionary is full
+	 */
+	public MetricKey get(String snapName, String path) {
+		String kPath = path == null ? SNAP_PATH : path;
+		ConcurrentHashMap<String, MetricKey> snapKeys = keys.get(snapName);
+		MetricKey key = snapKeys == null ? null : snapKeys.get(kPath);
+		if (key != null) {
+			return key;
+		}
+		key = new MetricKey(snapName, path);
+		if (size.get() >= maxSize) {
+			if (overflowCount.getAndIncrement() == 0) {
+				LOGGER.log(OpLevel.WARNING,
+						"Metric keys dictionary is full, new metric keys are not interned: max.size={0}, property={1}",
+						maxSize, PROP_METRIC_KEYS_SIZE);
+			}
+			return key;
+		}
+		if (snapKeys == null) {
+			snapKeys = new ConcurrentHashMap<String, MetricKey>();
+			ConcurrentHashMap<String, MetricKey> prev = keys.putIfAbsent(snapName, snapKeys);
+			snapKeys = prev == null ? snapKeys : prev;
+		}
+		MetricKey prev = snapKeys.putIfAbsent(kPath, key);
+		if (prev != null) {
+			return prev;
+		}
+		size.incrementAndGet();
+		if (keys.get(snapName) != snapKeys && snapKeys.remove(kPath, key)) {
+			// snapshot keys got evicted concurrently, and this key was not counted by eviction
+			size.decrementAndGet();
+		}
+		return key;
+	}
+
+	/**
+	 * Evict all metric keys of a given snapshot. Keys are removed one by one, so keys concurrently added to evicted
+	 * snapshot keys are accounted exactly once.
+	 *
+	 * @param snapName snapshot name
+	 */
+	public void evict(String snapName) {
+		ConcurrentHashMap<String, MetricKey> snapKeys = keys.remove(snapName);
+		if (snapKeys != null) {
+			for (String kPath : snapKeys.keySet()) {
+				if (snapKeys.remove(kPath) != null) {
+					size.decrementAndGet();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Obtain number of interned metric keys.
+	 *
+	 * @return number of interned keys
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * Obtain number of lookups returning new key instance, because dictionary was full.
+	 *
+	 * @return number of not interned key lookups
+	 */
+	public long getOverflowCount() {
+		return overflowCount.get();
+	}
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.format;
+
+import java.util.Arrays;
+
+import com.jkoolcloud.tnt4j.core.Property;
+import com.jkoolcloud.tnt4j.core.Snapshot;
+
+/**
+ * <p>
+ * This class defines columnar batch of metrics sampled during sampling cycle. Every metric (row) is stored as interned
+ * {@link MetricKey}, value type and index of value within value column of that type: integral and boolean values are
+ * stored unboxed in {@code long[]} column, floating point values - in {@code double[]} column, and other values - in
+ * object column. So batch retains no {@link Property} instances nor boxed numbers until metrics are formatted.
+ * </p>
+ * <p>
+ * Snapshots added to batch are exposed as {@link BatchSnapshot} views of batch rows, which formatters aware of batch
+ * format read directly, while other consumers read as regular snapshot properties. Snapshot views created by
+ * {@link #newSnapshot(String, String)} write added properties straight into batch columns, so sampled values are
+ * stored without building intermediate snapshot.
+ * </p>
+ * <p>
+ * Batch is not thread safe: it is filled by single thread, and must not be changed while being read.
+ * </p>
+ *
+ * @see BatchSnapshot
+ * @see MetricKeys
+ *
+ * @version $Revision: 1 $
+ */
+public class SampleBatch {
+	public static final byte TYPE_OBJECT = 0;
+	public static final byte TYPE_LONG = 1;
+	public static final byte TYPE_INT = 2;
+	public static final byte TYPE_SHORT = 3;
+	public static final byte TYPE_BYTE = 4;
+	public static final byte TYPE_BOOLEAN = 5;
+	public static final byte TYPE_DOUBLE = 6;
+	public static final byte TYPE_FLOAT = 7;
+
+	private static final int MIN_CAPACITY = 16;
+
+	private final MetricKeys metricKeys;
+	private MetricKey[] keys;
+	private byte[] types;
+	private int[] slots;
+	private long[] longs;
+	private double[] doubles;
+	private Object[] objects;
+	private int size = 0, longCount = 0, doubleCount = 0, objectCount = 0;
+
+	/**
+	 * Create empty batch using shared metric keys dictionary.
+	 *
+	 * @param capacity initial number of rows batch can hold
+	 */
+	public SampleBatch(int capacity) {
+		this(capacity, MetricKeys.getInstance());
+	}
+
+	/**
+	 * Create empty batch.
+	 *
+	 * @param capacity initial number of rows batch can hold
+	 * @param metricKeys metric keys dictionary used to intern row keys
+	 */
+	public SampleBatch(int capacity, MetricKeys metricKeys) {
+		this.metricKeys = metricKeys;
+		capacity = Math.max(MIN_CAPACITY, capacity);
+		keys = new MetricKey[capacity];
+		types = new byte[capacity];
+		slots = new int[capacity];
+		longs = new long[capacity];
+		doubles = new double[MIN_CAPACITY];
+		objects = new Object[MIN_CAPACITY];
+	}
+
+	/**
+	 * Create empty snapshot view starting at the end of this batch. Properties added to returned snapshot are written
+	 * into batch columns as new rows, until other rows are added to batch.
+	 *
+	 * @param category snapshot category
+	 * @param name snapshot name
+	 * @return snapshot view of batch rows
+	 */
+	public BatchSnapshot newSnapshot(String category, String name) {
+		return new BatchSnapshot(this, category, name, size, size);
+	}
+
+	/**
+	 * Move all properties of a given snapshot into this batch.
+	 *
+	 * @param snapshot snapshot which properties are added
+	 * @return snapshot view of added rows
+	 */
+	public BatchSnapshot add(Snapshot snapshot) {
+		int start = size;
+		String snapName = snapshot.getName();
+		for (Property p : snapshot.getSnapshot()) {
+			add(snapName, p.getKey(), p.getValue());
+		}
+		return new BatchSnapshot(this, snapshot.getCategory(), snapName, start, size);
+	}
+
+	/**
+	 * Add single metric to this batch.
+	 *
+	 * @param snapName snapshot name metric belongs to
+	 * @param key metric property key
+	 * @param value metric value
+	 * @return index of added row
+	 */
+	public int add(String snapName, String key, Object value) {
+		ensureCapacity(size + 1);
+		int row = size++;
+		keys[row] = metricKeys.get(snapName, key);
+		byte type = typeOf(value);
+		types[row] = type;
+		switch (type) {
+		case TYPE_OBJECT:
+			if (objectCount == objects.length) {
+				objects = Arrays.copyOf(objects, objectCount * 2);
+			}
+			slots[row] = objectCount;
+			objects[objectCount++] = value;
+			break;
+		case TYPE_DOUBLE:
+		case TYPE_FLOAT:
+			if (doubleCount == doubles.length) {
+				doubles = Arrays.copyOf(doubles, doubleCount * 2);
+			}
+			slots[row] = doubleCount;
+			doubles[doubleCount++] = ((Number) value).doubleValue();
+			break;
+		default:
+			if (longCount == longs.length) {
+				longs = Arrays.copyOf(longs, longCount * 2);
+			}
+			slots[row] = longCount;
+			longs[longCount++] = type == TYPE_BOOLEAN ? (((Boolean) value) ? 1 : 0) : ((Number) value).longValue();
+		}
+		return row;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > keys.length) {
+			int newCapacity = Math.max(capacity, keys.length * 2);
+			keys = Arrays.copyOf(keys, newCapacity);
+			types = Arrays.copyOf(types, newCapacity);
+			slots = Arrays.copyOf(slots, newCapacity);
+		}
+	}
+
+	private static byte typeOf(Object value) {
+		if (value == null) {
+			return TYPE_OBJECT;
+		}
+		Class<?> cls = value.getClass();
+		if (cls == Long.class) {
+			return TYPE_LONG;
+		} else if (cls == Integer.class) {
+			return TYPE_INT;
+		} else if (cls == Double.class) {
+			return TYPE_DOUBLE;
+		} else if (cls == Boolean.class) {
+			return TYPE_BOOLEAN;
+		} else if (cls == Float.class) {
+			return TYPE_FLOAT;
+		} else if (cls == Short.class) {
+			return TYPE_SHORT;
+		} else if (cls == Byte.class) {
+			return TYPE_BYTE;
+		}
+		return TYPE_OBJECT;
+	}
+
+	/**
+	 * Obtain number of rows in this batch.
+	 *
+	 * @return number of rows
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Obtain interned metric key of a given row.
+	 *
+	 * @param row row index
+	 * @return metric key
+	 */
+	public MetricKey getKey(int row) {
+		return keys[row];
+	}
+
+	/**
+	 * Obtain value type of a given row.
+	 *
+	 * @param row row index
+	 * @return value type, one of {@code TYPE_*} constants
+	 */
+	public byte getType(int row) {
+		return types[row];
+	}
+
+	/**
+	 * Determine if value of a given row is stored in {@code long[]} column.
+	 *
+	 * @param row row index
+	 * @return {@code true} if row value is integral or boolean, {@code false} - otherwise
+	 *
+	 * @see #getLong(int)
+	 */
+	public boolean isLong(int row) {
+		return types[row] != TYPE_OBJECT && types[row] < TYPE_DOUBLE;
+	}
+
+	/**
+	 * Determine if value of a given row is stored in {@code double[]} column.
+	 *
+	 * @param row row index
+	 * @return {@code true} if row value is floating point number, {@code false} - otherwise
+	 *
+	 * @see #getDouble(int)
+	 */
+	public boolean isDouble(int row) {
+		return types[row] >= TYPE_DOUBLE;
+	}
+
+	/**
+	 * Obtain unboxed integral value of a given row. Boolean values are stored as {@code 1} and {@code 0}.
+	 *
+	 * @param row row index
+	 * @return row value
+	 */
+	public long getLong(int row) {
+		return longs[slots[row]];
+	}
+
+	/**
+	 * Obtain unboxed floating point value of a given row.
+	 *
+	 * @param row row index
+	 * @return row value
+	 */
+	public double getDouble(int row) {
+		return doubles[slots[row]];
+	}
+
+	/**
+	 * Obtain value of a given row stored in object column.
+	 *
+	 * @param row row index
+	 * @return row value
+	 */
+	public Object getObject(int row) {
+		return objects[slots[row]];
+	}
+
+	/**
+	 * Obtain value of a given row, boxed to original value type.
+	 *
+	 * @param row row index
+	 * @return row value
+	 */
+	public Object getValue(int row) {
+		switch (types[row]) {
+		case TYPE_LONG:
+			return getLong(row);
+		case TYPE_INT:
+			return (int) getLong(row);
+		case TYPE_SHORT:
+			return (short) getLong(row);
+		case TYPE_BYTE:
+			return (byte) getLong(row);
+		case TYPE_BOOLEAN:
+			return getLong(row) != 0;
+		case TYPE_DOUBLE:
+			return getDouble(row);
+		case TYPE_FLOAT:
+			return (float) getDouble(row);
+		default:
+			return getObject(row);
+		}
+	}
+
+	/**
+	 * Make string representation of numeric or boolean value of a given row without boxing it.
+	 *
+	 * @param row row index
+	 * @return string representation of row value, {@code null} if row value is stored in object column
+	 */
+	public String getPrimitiveStr(int row) {
+		switch (types[row]) {
+		case TYPE_BOOLEAN:
+			return String.valueOf(getLong(row) != 0);
+		case TYPE_DOUBLE:
+			return String.valueOf(getDouble(row));
+		case TYPE_FLOAT:
+			return String.valueOf((float) getDouble(row));
+		case TYPE_OBJECT:
+			return null;
+		default:
+			return String.valueOf(getLong(row));
+		}
+	}
+
+	/**
+	 * Create snapshot property of a given row.
+	 *
+	 * @param row row index
+	 * @return snapshot property
+	 */
+	public Property getProperty(int row) {
+		return new Property(keys[row].getPath(), getValue(row));
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.format;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.Descriptor;
+import javax.management.MBeanAttributeInfo;
+import javax.management.openmbean.*;
+
+/**
+ * <p>
+ * This class defines shared "simple types only" setting honored by both formatters and MBean samplers, and simple type
+ * tests used to apply it. When setting is enabled, formatters replace values of complex types by
+ * {@code "<unsupported value type>"}, while samplers do not fetch MBean attributes which type shows that value can
+ * never be serialized. Attribute type is determined using {@code openType} descriptor field when available, otherwise
+ * using {@link MBeanAttributeInfo#getType()} class name. Values of {@link CompositeData} and {@link TabularData} types
+ * are flattened by sample listeners, so such attributes are fetched if any contained item is of simple type.
+ * </p>
+ *
+ * @see FactNameValueFormatter
+ *
+ * @version $Revision: 1 $
+ */
+public final class SimpleTypes {
+	/**
+	 * System property name to enable "simple types only" setting.
+	 */
+	public static final String PROP_SIMPLES_ONLY = "com.jkoolcloud.tnt4j.stream.jmx.simples.only";
+
+	private static final String OPEN_TYPE_FIELD = "openType";
+	private static final Set<String> PRIMITIVES = new HashSet<String>(Arrays.asList("boolean", "byte", "char", "short",
+			"int", "long", "float", "double"));
+
+	private static volatile boolean simplesOnly = Boolean.getBoolean(PROP_SIMPLES_ONLY);
+	private static final ConcurrentHashMap<String, Boolean> CLASS_TYPES = new ConcurrentHashMap<String, Boolean>();
+
+	private SimpleTypes() {
+	}
+
+	/**
+	 * Determine if "simple types only" setting is enabled. Default value is defined by system property
+	 * {@value #PROP_SIMPLES_ONLY}.
+	 *
+	 * @return {@code true} if only values of simple types are serialized, {@code false} - otherwise
+	 */
+	public static boolean isSimplesOnly() {
+		return simplesOnly;
+	}
+
+	/**
+	 * Enable or disable "simple types only" setting. Setting applies to MBeans registered after setting is changed.
+	 *
+	 * @param simples {@code true} to serialize only values of simple types, {@code false} - to serialize all values
+	 */
+	public static void setSimplesOnly(boolean simples) {
+		simplesOnly = simples;
+	}
+
+	/**
+	 * Determine if a given value is of simple type and can be meaningfully serialized to string.
+	 *
+	 * @param value value to test
+	 * @return {@code true} if a given value is of simple type, {@code false} - otherwise
+	 */
+	public static boolean isSimple(Object value) {
+		return value == null || value.getClass().isPrimitive() || value.getClass().isEnum() || value instanceof String
+				|| value instanceof Number || value instanceof Boolean || value instanceof Character;
+	}
+
+	/**
+	 * Determine if value of a given MBean attribute may contain values of simple types. Attribute which type can't be
+	 * resolved is assumed to possibly contain simple values.
+	 *
+	 * @param attr MBean attribute info
+	 * @return {@code false} if attribute value can never be serialized, {@code true} - otherwise
+	 */
+	public static boolean isEmittable(MBeanAttributeInfo attr) {
+		Descriptor descriptor = attr.getDescriptor();
+		Object openType = descriptor == null ? null : descriptor.getFieldValue(OPEN_TYPE_FIELD);
+		if (openType instanceof OpenType) {
+			return isEmittable((OpenType<?>) openType);
+		}
+		return isEmittable(attr.getType());
+	}
+
+	/**
+	 * Determine if value of a given open type may contain values of simple types.
+	 *
+	 * @param type open type
+	 * @return {@code false} if value can never be serialized, {@code true} - otherwise
+	 */
+	public static boolean isEmittable(OpenType<?> type) {
+		if (type instanceof CompositeType) {
+			CompositeType cType = (CompositeType) type;
+			for (String key : cType.keySet()) {
+				if (isEmittable(cType.getType(key))) {
+					return true;
+				}
+			}
+			return false;
+		} else if (type instanceof TabularType) {
+			return isEmittable(((TabularType) type).getRowType());
+		} else if (type instanceof SimpleType) {
+			return !(SimpleType.VOID.equals(type) || SimpleType.DATE.equals(type)
+					|| SimpleType.OBJECTNAME.equals(type));
+		}
+		return false;
+	}
+
+	/**
+	 * Determine if value of a given class may be of simple type.
+	 *
+	 * @param className value class name
+	 * @return {@code false} if value can never be serialized, {@code true} - otherwise
+	 */
+	public static boolean isEmittable(String className) {
+		if (className == null) {
+			return true;
+		}
+		Boolean emittable = CLASS_TYPES.get(className);
+		if (emittable == null) {
+			emittable = resolveEmittable(className);
+			CLASS_TYPES.putIfAbsent(className, emittable);
+		}
+		return emittable;
+	}
+
+	private static boolean resolveEmittable(String className) {
+		if (PRIMITIVES.contains(className)) {
+			return true;
+		} else if ("void".equals(className) || className.startsWith("[")) {
+			return false;
+		}
+		Class<?> cls;
+		try {
+			cls = Class.forName(className, false, SimpleTypes.class.getClassLoader());
+		} catch (Throwable exc) {
+			return true;
+		}
+		return cls.isAssignableFrom(String.class) || cls.isAssignableFrom(Integer.class)
+				|| cls.isAssignableFrom(Boolean.class) || cls.isAssignableFrom(Character.class)
+				|| Number.class.isAssignableFrom(cls) || Enum.class.isAssignableFrom(cls)
+				|| CompositeData.class.isAssignableFrom(cls) || TabularData.class.isAssignableFrom(cls)
+				|| cls.isAssignableFrom(CompositeData.class) || cls.isAssignableFrom(TabularData.class);
+	}
+}
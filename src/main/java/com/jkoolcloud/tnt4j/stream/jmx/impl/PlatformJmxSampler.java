@@ -27,6 +27,7 @@ import com.jkoolcloud.tnt4j.stream.jmx.conditions.AttributeCondition;
 import com.jkoolcloud.tnt4j.stream.jmx.core.SampleContext;
 import com.jkoolcloud.tnt4j.stream.jmx.core.SampleListener;
 import com.jkoolcloud.tnt4j.stream.jmx.core.Sampler;
+import com.jkoolcloud.tnt4j.stream.jmx.core.SchedulePolicy;
 import com.jkoolcloud.tnt4j.stream.jmx.scheduler.Scheduler;
 import com.jkoolcloud.tnt4j.stream.jmx.scheduler.SchedulerImpl;
 
@@ -147,6 +148,15 @@ public class PlatformJmxSampler implements Sampler {
 		return this;
 	}
 
+	@Override
+	public Sampler setSchedulePolicy(SchedulePolicy policy) {
+		if (sampler == null) {
+			throw new IllegalStateException("no schedule set: call setSchedule() first");
+		}
+		sampler.setSchedulePolicy(policy);
+		return this;
+	}
+
 	@Override
 	public Sampler register(AttributeCondition cond, AttributeAction action) {
 		if (sampler == null) {
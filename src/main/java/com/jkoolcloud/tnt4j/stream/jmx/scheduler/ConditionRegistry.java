@@ -0,0 +1,205 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.ObjectName;
+
+import com.jkoolcloud.tnt4j.stream.jmx.conditions.AttributeAction;
+import com.jkoolcloud.tnt4j.stream.jmx.conditions.AttributeCondition;
+import com.jkoolcloud.tnt4j.stream.jmx.conditions.ExpressionCondition;
+import com.jkoolcloud.tnt4j.stream.jmx.conditions.TargetedCondition;
+
+/**
+ * <p>
+ * This class provides registry of attribute conditions used by {@link SampleHandlerImpl}. Conditions implementing
+ * {@link TargetedCondition} are indexed by exact MBean object name or kept in object name patterns list, while
+ * opaque conditions are evaluated for every attribute sample. Candidate conditions of every MBean attribute are
+ * resolved once and cached until condition set changes or MBean gets unregistered.
+ * </p>
+ *
+ * @see TargetedCondition
+ * @see SampleHandlerImpl
+ *
+ * @version $Revision: 1 $
+ */
+class ConditionRegistry {
+	private static final Binding[] NO_BINDINGS = new Binding[0];
+
+	private final Map<AttributeCondition, Binding> bindings = new LinkedHashMap<AttributeCondition, Binding>(89);
+	private final Map<ObjectName, List<Binding>> exact = new HashMap<ObjectName, List<Binding>>(89);
+	private final List<Binding> patterns = new ArrayList<Binding>();
+	private final List<Binding> opaque = new ArrayList<Binding>();
+	private final ConcurrentHashMap<ObjectName, ConcurrentHashMap<String, Binding[]>> candidates =
+			new ConcurrentHashMap<ObjectName, ConcurrentHashMap<String, Binding[]>>(89);
+	private volatile int count = 0;
+	private long seq = 0;
+
+	/**
+	 * Register and associate condition with an action. Registering same condition again replaces associated action.
+	 *
+	 * @param cond attribute condition
+	 * @param action action to be triggered when condition evaluates to true
+	 */
+	synchronized void register(AttributeCondition cond, AttributeAction action) {
+		Binding binding = bindings.get(cond);
+		if (binding != null) {
+			binding.action = action;
+			return;
+		}
+		binding = new Binding(seq++, cond, action);
+		bindings.put(cond, binding);
+		count = bindings.size();
+		ObjectName target = binding.targetName;
+		if (target == null) {
+			opaque.add(binding);
+		} else if (target.isPattern()) {
+			patterns.add(binding);
+		} else {
+			List<Binding> list = exact.get(target);
+			if (list == null) {
+				list = new ArrayList<Binding>(5);
+				exact.put(target, list);
+			}
+			list.add(binding);
+		}
+		candidates.clear();
+	}
+
+	/**
+	 * Obtain number of registered conditions
+	 *
+	 * @return number of registered conditions
+	 */
+	int size() {
+		return count;
+	}
+
+	/**
+	 * Drop cached candidate conditions and per MBean state of expression conditions of a given MBean. Runs under
+	 * the same lock as candidates resolution, so resolution running concurrently can't cache candidates of evicted
+	 * MBean once eviction completes.
+	 *
+	 * @param name MBean object name
+	 */
+	synchronized void evict(ObjectName name) {
+		candidates.remove(name);
+		if (count > 0) {
+			evictStates(name);
+		}
+	}
+
+	private void evictStates(ObjectName name) {
+		List<Binding> eList = exact.get(name);
+		if (eList != null) {
+			evictStates(eList, name);
+		}
+		evictStates(patterns, name);
+	}
+
+	private static void evictStates(List<Binding> from, ObjectName name) {
+		for (Binding binding : from) {
+			if (binding.condition instanceof ExpressionCondition && binding.targetName.apply(name)) {
+				((ExpressionCondition) binding.condition).evict(name);
+			}
+		}
+	}
+
+	/**
+	 * Obtain conditions, in registration order, able to match a given MBean attribute. Returns without locking when
+	 * no conditions are registered. Resolved candidates, including empty ones, are cached per MBean attribute.
+	 *
+	 * @param name MBean object name
+	 * @param attrName MBean attribute name
+	 * @return array of candidate condition bindings
+	 */
+	Binding[] getCandidates(ObjectName name, String attrName) {
+		if (count == 0) {
+			return NO_BINDINGS;
+		}
+		ConcurrentHashMap<String, Binding[]> attrs = candidates.get(name);
+		Binding[] cands = attrs == null ? null : attrs.get(attrName);
+		return cands != null ? cands : resolve(name, attrName);
+	}
+
+	private synchronized Binding[] resolve(ObjectName name, String attrName) {
+		ConcurrentHashMap<String, Binding[]> attrs = candidates.get(name);
+		Binding[] cands = attrs == null ? null : attrs.get(attrName);
+		if (cands != null) {
+			return cands;
+		}
+		List<Binding> list = new ArrayList<Binding>();
+		List<Binding> eList = exact.get(name);
+		if (eList != null) {
+			addMatching(list, eList, name, attrName);
+		}
+		addMatching(list, patterns, name, attrName);
+		addMatching(list, opaque, name, attrName);
+		Collections.sort(list);
+
+		if (attrs == null) {
+			attrs = new ConcurrentHashMap<String, Binding[]>();
+			candidates.put(name, attrs);
+		}
+		cands = list.isEmpty() ? NO_BINDINGS : list.toArray(new Binding[list.size()]);
+		attrs.put(attrName, cands);
+		return cands;
+	}
+
+	private static void addMatching(List<Binding> to, List<Binding> from, ObjectName name, String attrName) {
+		for (Binding binding : from) {
+			if (binding.matches(name, attrName)) {
+				to.add(binding);
+			}
+		}
+	}
+
+	/**
+	 * Attribute condition bound to action.
+	 */
+	static class Binding implements Comparable<Binding> {
+		final long order;
+		final AttributeCondition condition;
+		final ObjectName targetName;
+		final String targetAttr;
+		volatile AttributeAction action;
+
+		Binding(long order, AttributeCondition condition, AttributeAction action) {
+			this.order = order;
+			this.condition = condition;
+			this.action = action;
+			if (condition instanceof TargetedCondition) {
+				targetName = ((TargetedCondition) condition).getTargetName();
+				targetAttr = ((TargetedCondition) condition).getTargetAttribute();
+			} else {
+				targetName = null;
+				targetAttr = null;
+			}
+		}
+
+		boolean matches(ObjectName name, String attrName) {
+			return (targetAttr == null || targetAttr.equals(attrName))
+					&& (targetName == null || targetName.apply(name));
+		}
+
+		@Override
+		public int compareTo(Binding other) {
+			return order < other.order ? -1 : (order == other.order ? 0 : 1);
+		}
+	}
+}
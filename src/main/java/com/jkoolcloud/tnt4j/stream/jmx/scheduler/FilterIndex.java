@@ -0,0 +1,184 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.util.*;
+
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * This class provides index of JMX object name patterns used by {@link SampleHandlerImpl} to match object names
+ * against MBean filters. Patterns are indexed by exact domain and by value of {@value #INDEX_KEY} key property,
+ * patterns having domain wildcard or {@value #INDEX_KEY} key property value pattern are kept in separate lists. So
+ * only patterns which may match object name domain and type are applied. Match results are cached per object name,
+ * cache size is bounded.
+ * </p>
+ *
+ * @param <T> type of value associated with object name pattern
+ *
+ * @see SampleHandlerImpl
+ *
+ * @version $Revision: 1 $
+ */
+class FilterIndex<T> {
+	static final String INDEX_KEY = "type";
+	static final int DEFAULT_CACHE_SIZE = 4096;
+
+	private static final Object NO_MATCH = new Object();
+
+	private final Map<String, Bucket> domains = new HashMap<String, Bucket>();
+	private final Bucket wildcards = new Bucket();
+	private final Map<ObjectName, Object> cache;
+	private int size = 0;
+
+	/**
+	 * Create empty object name patterns index with default match results cache size.
+	 */
+	FilterIndex() {
+		this(DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Create empty object name patterns index.
+	 *
+	 * @param cacheSize maximal number of cached match results
+	 */
+	FilterIndex(final int cacheSize) {
+		this.cache = new LinkedHashMap<ObjectName, Object>(Math.min(cacheSize, 1024), 0.75f, true) {
+			private static final long serialVersionUID = 2380432652937385727L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ObjectName, Object> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * Add object name pattern to this index. Patterns are matched in order they were added.
+	 *
+	 * @param pattern object name pattern
+	 * @param value value associated with pattern
+	 * @return instance of this index
+	 */
+	synchronized FilterIndex<T> add(ObjectName pattern, T value) {
+		Bucket bucket = wildcards;
+		if (!pattern.isDomainPattern()) {
+			bucket = domains.get(pattern.getDomain());
+			if (bucket == null) {
+				bucket = new Bucket();
+				domains.put(pattern.getDomain(), bucket);
+			}
+		}
+		bucket.add(new Entry<T>(size++, pattern, value));
+		cache.clear();
+		return this;
+	}
+
+	/**
+	 * Determine if this index contains no object name patterns.
+	 *
+	 * @return {@code true} if index is empty, {@code false} - otherwise
+	 */
+	synchronized boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Find first added object name pattern matching a given object name.
+	 *
+	 * @param oname object name
+	 * @return value associated with first matching pattern, {@code null} if no pattern matches object name
+	 */
+	@SuppressWarnings("unchecked")
+	synchronized T match(ObjectName oname) {
+		Object value = cache.get(oname);
+		if (value == null) {
+			Entry<T> first = wildcards.match(oname, null);
+			Bucket bucket = domains.get(oname.getDomain());
+			if (bucket != null) {
+				first = bucket.match(oname, first);
+			}
+			value = first == null ? NO_MATCH : first.value;
+			cache.put(oname, value);
+		}
+		return value == NO_MATCH ? null : (T) value;
+	}
+
+	/**
+	 * Entry of object name pattern added to index.
+	 */
+	private static class Entry<T> {
+		final int order;
+		final ObjectName pattern;
+		final T value;
+
+		Entry(int order, ObjectName pattern, T value) {
+			this.order = order;
+			this.pattern = pattern;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * Object name patterns of single domain (or domain wildcards) indexed by {@value FilterIndex#INDEX_KEY} key
+	 * property value.
+	 */
+	private static class Bucket {
+		final Map<String, List<Entry<?>>> byKey = new HashMap<String, List<Entry<?>>>();
+		final List<Entry<?>> unkeyed = new ArrayList<Entry<?>>();
+
+		void add(Entry<?> entry) {
+			String key = entry.pattern.getKeyProperty(INDEX_KEY);
+			if (key == null || entry.pattern.isPropertyValuePattern(INDEX_KEY)) {
+				unkeyed.add(entry);
+			} else {
+				List<Entry<?>> entries = byKey.get(key);
+				if (entries == null) {
+					entries = new ArrayList<Entry<?>>(2);
+					byKey.put(key, entries);
+				}
+				entries.add(entry);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		<T> Entry<T> match(ObjectName oname, Entry<T> first) {
+			first = (Entry<T>) match(unkeyed, oname, first);
+			String key = oname.getKeyProperty(INDEX_KEY);
+			if (key != null && !byKey.isEmpty()) {
+				List<Entry<?>> entries = byKey.get(key);
+				if (entries != null) {
+					first = (Entry<T>) match(entries, oname, first);
+				}
+			}
+			return first;
+		}
+
+		private static Entry<?> match(List<Entry<?>> entries, ObjectName oname, Entry<?> first) {
+			for (Entry<?> entry : entries) {
+				if (first != null && entry.order > first.order) {
+					break;
+				}
+				if (entry.pattern.apply(oname)) {
+					return entry;
+				}
+			}
+			return first;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * This class provides schedule of MBean info revalidations used by {@link SampleHandlerImpl}. Every scheduled MBean is
+ * due for revalidation after defined time to live plus random per-MBean jitter, so revalidations of MBeans registered
+ * together are spread over time. Due MBeans are polled in deadline order, so polling does not scan all scheduled
+ * MBeans. Cancelled and rescheduled revalidations are dropped from queue lazily, when polled.
+ * </p>
+ *
+ * @see SampleHandlerImpl
+ *
+ * @version $Revision: 1 $
+ */
+class InfoRefreshQueue {
+	private final long ttlNanos;
+	private final long jitterNanos;
+	private final PriorityQueue<Entry> queue = new PriorityQueue<Entry>(89, new Comparator<Entry>() {
+		@Override
+		public int compare(Entry e1, Entry e2) {
+			long diff = e1.deadline - e2.deadline;
+			return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+		}
+	});
+	private final Map<ObjectName, Entry> entries = new HashMap<ObjectName, Entry>(89);
+
+	/**
+	 * Create MBean info revalidations schedule.
+	 *
+	 * @param ttl MBean info time to live in milliseconds, {@code 0} - MBean info is never revalidated
+	 * @param jitter maximal random delay in milliseconds added to MBean info time to live
+	 */
+	InfoRefreshQueue(long ttl, long jitter) {
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttl));
+		this.jitterNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, jitter));
+	}
+
+	/**
+	 * Determine if MBean info revalidation is enabled.
+	 *
+	 * @return {@code true} if MBean info time to live is defined, {@code false} - otherwise
+	 */
+	boolean isEnabled() {
+		return ttlNanos > 0;
+	}
+
+	/**
+	 * Schedule MBean info revalidation of a given MBean, replacing previously scheduled one.
+	 *
+	 * @param name MBean object name
+	 */
+	synchronized void schedule(ObjectName name) {
+		if (!isEnabled()) {
+			return;
+		}
+		long delay = ttlNanos + (jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos + 1) : 0);
+		Entry entry = new Entry(name, System.nanoTime() + delay);
+		entries.put(name, entry);
+		queue.add(entry);
+	}
+
+	/**
+	 * Cancel scheduled MBean info revalidation of a given MBean.
+	 *
+	 * @param name MBean object name
+	 */
+	synchronized void evict(ObjectName name) {
+		entries.remove(name); // cancelled entry is dropped when polled
+	}
+
+	/**
+	 * Poll MBeans due for MBean info revalidation. Polled MBeans are no longer scheduled.
+	 *
+	 * @param now current {@link System#nanoTime()} value
+	 * @return list of MBean object names due for revalidation
+	 */
+	synchronized List<ObjectName> pollDue(long now) {
+		List<ObjectName> due = Collections.emptyList();
+		Entry entry;
+		while ((entry = queue.peek()) != null && entry.deadline - now <= 0) {
+			queue.poll();
+			if (entries.get(entry.name) == entry) {
+				entries.remove(entry.name);
+				if (due.isEmpty()) {
+					due = new ArrayList<ObjectName>();
+				}
+				due.add(entry.name);
+			}
+		}
+		return due;
+	}
+
+	/**
+	 * Obtain number of MBeans scheduled for MBean info revalidation.
+	 *
+	 * @return number of scheduled MBeans
+	 */
+	synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Scheduled MBean info revalidation.
+	 */
+	private static class Entry {
+		final ObjectName name;
+		final long deadline;
+
+		Entry(ObjectName name, long deadline) {
+			this.name = name;
+			this.deadline = deadline;
+		}
+	}
+}
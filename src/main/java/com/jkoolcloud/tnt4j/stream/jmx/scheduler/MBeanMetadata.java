@@ -0,0 +1,174 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Descriptor;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanNotificationInfo;
+import javax.management.NotificationFilterSupport;
+
+import com.jkoolcloud.tnt4j.stream.jmx.format.SimpleTypes;
+
+/**
+ * <p>
+ * This class defines compact MBean metadata retained by {@link SamplePlan} instead of complete {@link MBeanInfo}: MBean
+ * class name and readable attributes names, types, flags and descriptors. Attribute infos are trimmed of descriptions,
+ * while descriptors are kept, since attribute {@code openType} descriptor field is used by listeners receiving
+ * attribute info with samples. Whether attribute value may be serialized when "simple types only" setting is enabled
+ * is resolved once. Metadata also tells whether MBean info is declared immutable by {@value #IMMUTABLE_INFO_FIELD}
+ * descriptor field, and whether MBean emits {@value #INFO_CHANGED_NOTIFICATION} notifications. Metadata instances are
+ * interned, so MBeans of the same class having the same attributes share single instance and attribute arrays.
+ * Interned metadata cache size is bounded.
+ * </p>
+ *
+ * @see SamplePlan
+ *
+ * @version $Revision: 1 $
+ */
+class MBeanMetadata {
+	static final int DEFAULT_CACHE_SIZE = 4096;
+	static final String IMMUTABLE_INFO_FIELD = "immutableInfo";
+	static final String INFO_CHANGED_NOTIFICATION = "jmx.mbean.info.changed";
+
+	private static final Map<MBeanMetadata, MBeanMetadata> INTERNED = new LinkedHashMap<MBeanMetadata, MBeanMetadata>(
+			89, 0.75f, true) {
+		private static final long serialVersionUID = -4383465370409582498L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<MBeanMetadata, MBeanMetadata> eldest) {
+			return size() > DEFAULT_CACHE_SIZE;
+		}
+	};
+
+	final String className;
+	final MBeanAttributeInfo[] attrs;
+	final String[] attrNames;
+	final boolean[] emittable;
+	final boolean immutable;
+	final boolean notifying;
+	private final int hash;
+
+	private MBeanMetadata(String className, MBeanAttributeInfo[] attrs, boolean[] emittable, boolean immutable,
+			boolean notifying) {
+		this.className = className;
+		this.attrs = attrs;
+		this.emittable = emittable;
+		this.immutable = immutable;
+		this.notifying = notifying;
+		this.attrNames = new String[attrs.length];
+		for (int i = 0; i < attrs.length; i++) {
+			attrNames[i] = attrs[i].getName();
+		}
+		this.hash = 31 * (31 * String.valueOf(className).hashCode() + Arrays.hashCode(attrs))
+				+ Arrays.hashCode(emittable) + (immutable ? 1 : 0) + (notifying ? 2 : 0);
+	}
+
+	/**
+	 * Obtain interned compact metadata of a given MBean info.
+	 *
+	 * @param info MBean info
+	 * @return compact MBean metadata
+	 */
+	static MBeanMetadata of(MBeanInfo info) {
+		MBeanAttributeInfo[] infoAttrs = info.getAttributes();
+		List<MBeanAttributeInfo> attrs = new ArrayList<MBeanAttributeInfo>(infoAttrs.length);
+		boolean[] emittable = new boolean[infoAttrs.length];
+		for (MBeanAttributeInfo attr : infoAttrs) {
+			if (attr.isReadable()) {
+				emittable[attrs.size()] = SimpleTypes.isEmittable(attr);
+				attrs.add(new MBeanAttributeInfo(attr.getName(), attr.getType(), null, attr.isReadable(),
+						attr.isWritable(), attr.isIs(), attr.getDescriptor()));
+			}
+		}
+		MBeanMetadata meta = new MBeanMetadata(info.getClassName(),
+				attrs.toArray(new MBeanAttributeInfo[attrs.size()]), Arrays.copyOf(emittable, attrs.size()),
+				isImmutable(info), isNotifying(info));
+		synchronized (INTERNED) {
+			MBeanMetadata interned = INTERNED.get(meta);
+			if (interned == null) {
+				INTERNED.put(meta, meta);
+				interned = meta;
+			}
+			return interned;
+		}
+	}
+
+	private static boolean isImmutable(MBeanInfo info) {
+		Descriptor descriptor = info.getDescriptor();
+		Object immutable = descriptor == null ? null : descriptor.getFieldValue(IMMUTABLE_INFO_FIELD);
+		return immutable != null && Boolean.parseBoolean(String.valueOf(immutable));
+	}
+
+	private static boolean isNotifying(MBeanInfo info) {
+		MBeanNotificationInfo[] notifications = info.getNotifications();
+		if (notifications != null) {
+			for (MBeanNotificationInfo notification : notifications) {
+				if (Arrays.asList(notification.getNotifTypes()).contains(INFO_CHANGED_NOTIFICATION)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Create notification filter accepting only {@value #INFO_CHANGED_NOTIFICATION} notifications.
+	 *
+	 * @return MBean info change notifications filter
+	 */
+	static NotificationFilterSupport newInfoChangedFilter() {
+		NotificationFilterSupport filter = new NotificationFilterSupport();
+		filter.enableType(INFO_CHANGED_NOTIFICATION);
+		return filter;
+	}
+
+	/**
+	 * Obtain number of interned MBean metadata instances.
+	 *
+	 * @return number of interned metadata instances
+	 */
+	static int internedCount() {
+		synchronized (INTERNED) {
+			return INTERNED.size();
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof MBeanMetadata)) {
+			return false;
+		}
+		MBeanMetadata other = (MBeanMetadata) obj;
+		return hash == other.hash && (className == null ? other.className == null : className.equals(other.className))
+				&& immutable == other.immutable && notifying == other.notifying && Arrays.equals(attrs, other.attrs)
+				&& Arrays.equals(emittable, other.emittable);
+	}
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * This class provides queue of MBean registration and unregistration events used by {@link SampleHandlerImpl}.
+ * Events are coalesced by object name: registration followed by unregistration of the same MBean cancel out, and
+ * repeated events of the same MBean are merged. MBean info revalidation events are merged into any other queued event
+ * of the same MBean, since registration resolves MBean info anyway. Queued events are resolved in batches by
+ * background workers, number of concurrently running workers is bounded. Events of the same MBean are never resolved
+ * concurrently.
+ * </p>
+ *
+ * @see SampleHandlerImpl
+ *
+ * @version $Revision: 1 $
+ */
+class RegistrationQueue {
+	static final int BATCH_SIZE = 128;
+
+	private final SampleHandlerImpl handler;
+	private final int concurrency;
+	private final LinkedHashMap<ObjectName, Event> pending = new LinkedHashMap<ObjectName, Event>(89);
+	private final Set<ObjectName> inFlight = new HashSet<ObjectName>();
+	private final AtomicInteger workers = new AtomicInteger();
+	private final AtomicLong coalescedCount = new AtomicLong();
+	private final AtomicLong lastLatencyUsec = new AtomicLong();
+	private ExecutorService executor;
+
+	/**
+	 * Create registration events queue resolving events on a given sample handler.
+	 *
+	 * @param handler sample handler to resolve events on
+	 * @param concurrency maximal number of concurrently running resolution workers
+	 */
+	RegistrationQueue(SampleHandlerImpl handler, int concurrency) {
+		this.handler = handler;
+		this.concurrency = Math.max(1, concurrency);
+	}
+
+	/**
+	 * Queue MBean registration event.
+	 *
+	 * @param name registered MBean object name
+	 */
+	void register(ObjectName name) {
+		enqueue(name, true);
+	}
+
+	/**
+	 * Queue MBean unregistration event.
+	 *
+	 * @param name unregistered MBean object name
+	 */
+	void unregister(ObjectName name) {
+		enqueue(name, false);
+	}
+
+	/**
+	 * Queue MBean info revalidation event.
+	 *
+	 * @param name MBean object name
+	 */
+	void refresh(ObjectName name) {
+		synchronized (pending) {
+			if (pending.containsKey(name)) {
+				coalescedCount.incrementAndGet();
+				return;
+			}
+			Event event = new Event(name, true);
+			event.refresh = true;
+			pending.put(name, event);
+		}
+		startWorker();
+	}
+
+	private void enqueue(ObjectName name, boolean register) {
+		synchronized (pending) {
+			Event event = pending.get(name);
+			if (event == null) {
+				pending.put(name, new Event(name, register));
+			} else {
+				coalescedCount.incrementAndGet();
+				if (event.refresh) {
+					// registered MBean info revalidation superseded
+					event.refresh = false;
+					event.register = register;
+					event.replace = register;
+				} else if (event.register && !register && !event.replace) {
+					// MBean registered and unregistered before being resolved
+					pending.remove(name);
+				} else {
+					event.replace |= !event.register && register;
+					event.register = register;
+				}
+			}
+		}
+		startWorker();
+	}
+
+	/**
+	 * Obtain number of queued MBean registration events.
+	 *
+	 * @return number of queued events
+	 */
+	int getDepth() {
+		synchronized (pending) {
+			return pending.size();
+		}
+	}
+
+	/**
+	 * Obtain number of MBean registration events merged or cancelled out by coalescing.
+	 *
+	 * @return number of coalesced events
+	 */
+	long getCoalescedCount() {
+		return coalescedCount.get();
+	}
+
+	/**
+	 * Obtain time in microseconds last resolved MBean registration event has spent since being queued.
+	 *
+	 * @return last event resolution latency in microseconds
+	 */
+	long getLastLatencyUsec() {
+		return lastLatencyUsec.get();
+	}
+
+	/**
+	 * Reset counters maintained by this queue.
+	 */
+	void resetCounters() {
+		coalescedCount.set(0);
+		lastLatencyUsec.set(0);
+	}
+
+	/**
+	 * Shutdown resolution workers. Workers are recreated if new events are queued.
+	 */
+	synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+
+	private synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(concurrency, new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread worker = new Thread(r, "SampleHandlerImpl-registrar-" + count.incrementAndGet());
+					worker.setDaemon(true);
+					return worker;
+				}
+			});
+		}
+		return executor;
+	}
+
+	private void startWorker() {
+		int count;
+		do {
+			count = workers.get();
+			if (count >= concurrency) {
+				return;
+			}
+		} while (!workers.compareAndSet(count, count + 1));
+		try {
+			getExecutor().execute(new Runnable() {
+				@Override
+				public void run() {
+					drain();
+				}
+			});
+		} catch (RejectedExecutionException exc) {
+			workers.decrementAndGet();
+		}
+	}
+
+	private void drain() {
+		try {
+			List<Event> batch;
+			while (!(batch = pollBatch()).isEmpty()) {
+				for (Event event : batch) {
+					try {
+						resolve(event);
+					} finally {
+						synchronized (pending) {
+							inFlight.remove(event.name);
+						}
+					}
+				}
+			}
+		} finally {
+			workers.decrementAndGet();
+			if (hasReady()) {
+				startWorker();
+			}
+		}
+	}
+
+	/**
+	 * Check if queue has events ready to be resolved. Events of MBeans being resolved by other workers are not ready:
+	 * worker resolving MBean picks up queued event of the same MBean once it completes resolution.
+	 *
+	 * @return {@code true} if there are queued events of MBeans not being resolved, {@code false} otherwise
+	 */
+	private boolean hasReady() {
+		synchronized (pending) {
+			for (ObjectName name : pending.keySet()) {
+				if (!inFlight.contains(name)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private List<Event> pollBatch() {
+		synchronized (pending) {
+			List<Event> batch = new ArrayList<Event>(Math.min(BATCH_SIZE, pending.size()));
+			Iterator<Event> it = pending.values().iterator();
+			while (it.hasNext() && batch.size() < BATCH_SIZE) {
+				Event event = it.next();
+				if (inFlight.add(event.name)) {
+					it.remove();
+					batch.add(event);
+				}
+			}
+			return batch;
+		}
+	}
+
+	private void resolve(Event event) {
+		if (event.refresh) {
+			handler.refreshMBean(event.name);
+		} else if (event.register) {
+			if (event.replace) {
+				handler.unregisterMBean(event.name);
+			}
+			handler.resolveMBean(event.name);
+		} else {
+			handler.unregisterMBean(event.name);
+		}
+		lastLatencyUsec.set((System.nanoTime() - event.queued) / 1000);
+	}
+
+	/**
+	 * Queued MBean registration event.
+	 */
+	private static class Event {
+		final ObjectName name;
+		final long queued = System.nanoTime();
+		boolean register;
+		boolean replace;
+		boolean refresh;
+
+		Event(ObjectName name, boolean register) {
+			this.name = name;
+			this.register = register;
+		}
+	}
+}
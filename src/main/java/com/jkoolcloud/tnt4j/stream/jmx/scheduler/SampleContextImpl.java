@@ -15,9 +15,15 @@
  */
 package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
 
+import java.io.IOException;
+
+import javax.management.JMException;
+import javax.management.MBeanInfo;
 import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
 
 import com.jkoolcloud.tnt4j.stream.jmx.core.SampleContext;
+import com.jkoolcloud.tnt4j.stream.jmx.core.SampleStats;
 
 /**
  * <p>
@@ -41,9 +47,14 @@ public class SampleContextImpl implements SampleContext {
 		return handle.mbeanServer;
 	}
 
+	@Override
+	public MBeanInfo getMBeanInfo(ObjectName name) throws JMException, IOException {
+		return handle.mbeanServer.getMBeanInfo(name);
+	}
+
 	@Override
 	public long getSampleCount() {
-		return handle.sampleCount;
+		return handle.sampleCount.get();
 	}
 
 	@Override
@@ -53,22 +64,22 @@ public class SampleContextImpl implements SampleContext {
 
 	@Override
 	public long getExcludeAttrCount() {
-		return handle.excCount;
+		return handle.excCount.get();
 	}
 
 	@Override
 	public long getTotalMetricCount() {
-		return handle.totalMetricCount;
+		return handle.totalMetricCount.get();
 	}
 
 	@Override
 	public long getLastMetricCount() {
-		return handle.lastMetricCount;
+		return handle.lastMetricCount.get();
 	}
 
 	@Override
 	public long getTotalNoopCount() {
-		return handle.noopCount;
+		return handle.noopCount.get();
 	}
 
 	@Override
@@ -78,7 +89,18 @@ public class SampleContextImpl implements SampleContext {
 
 	@Override
 	public long getLastSampleUsec() {
-		return handle.lastSampleTimeUsec;
+		return handle.lastSampleTimeUsec.get();
+	}
+
+	@Override
+	public SampleContext rebuildPlans() {
+		handle.rebuildPlans();
+		return this;
+	}
+
+	@Override
+	public SampleStats getStats() {
+		return new SampleStats(this);
 	}
 
 	@Override
@@ -89,6 +111,81 @@ public class SampleContextImpl implements SampleContext {
 
 	@Override
 	public long getTotalErrorCount() {
-		return handle.errorCount;
+		return handle.errorCount.get();
+	}
+
+	@Override
+	public long getTotalEmittedCount() {
+		return handle.emittedCount.get();
+	}
+
+	@Override
+	public long getTotalSuppressedCount() {
+		return handle.suppressedCount.get();
+	}
+
+	@Override
+	public long getQuarantinedAttrCount() {
+		return handle.quarantine.getQuarantinedCount();
+	}
+
+	@Override
+	public long getTotalOverdueCount() {
+		return handle.overdueCount.get();
+	}
+
+	@Override
+	public long getAttributeLatencyUsec(ObjectName name, String attrName) {
+		return handle.quarantine.getLatencyUsec(name, attrName);
+	}
+
+	@Override
+	public long getTotalOverrunCount() {
+		return handle.overrunCount.get();
+	}
+
+	@Override
+	public long getTotalSkipCount() {
+		return handle.skipCount.get();
+	}
+
+	@Override
+	public long getLastScheduleLagUsec() {
+		return handle.lastLagUsec.get();
+	}
+
+	@Override
+	public int getRegistrationQueueDepth() {
+		return handle.registrations.getDepth();
+	}
+
+	@Override
+	public long getLastRegistrationLatencyUsec() {
+		return handle.registrations.getLastLatencyUsec();
+	}
+
+	@Override
+	public long getTotalCoalescedCount() {
+		return handle.registrations.getCoalescedCount();
+	}
+
+	@Override
+	public long getTotalNotificationCount() {
+		return handle.notificationCount.get();
+	}
+
+	@Override
+	public long getTotalRejectedNotificationCount() {
+		return handle.rejectedNotificationCount.get();
+	}
+
+	@Override
+	public long getTotalInfoRefreshCount() {
+		return handle.infoRefreshCount.get();
+	}
+
+	@Override
+	public long getTotalInfoChangeCount() {
+		return handle.infoChangeCount.get();
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * This class defines MBean filter token used by {@link SampleHandlerImpl}. Filter token is JMX object name pattern
+ * optionally followed by attribute list and sampling period: {@code object-name-pattern[#attributes][@period]}, where
+ * period is number followed by time unit {@code ms}, {@code s}, {@code m} or {@code h}, e.g.
+ * {@code java.lang:*@1s;kafka.server:*@30s;*:*@5m}. MBeans matched by filter having no period defined are sampled
+ * using scheduler sampling period. Object name key property values containing {@code ;} or {@code #} must be quoted.
+ * </p>
+ * <p>
+ * Attribute list is comma separated list of attribute names, attribute name globs using {@code *} and {@code ?}
+ * wildcards, or regular expressions enclosed in slashes, e.g.
+ * {@code java.lang:type=Threading#ThreadCount,Peak*;java.lang:type=Memory#/.*HeapMemoryUsage/@10s}. Include filter
+ * having attribute list selects only listed attributes of matched MBeans, while exclude filter having attribute list
+ * excludes only listed attributes, not the whole MBean. Filter having no attribute list matches all MBean attributes.
+ * </p>
+ *
+ * @see SampleHandlerImpl
+ *
+ * @version $Revision: 1 $
+ */
+public class SampleFilter {
+	public static final String FILTER_DELIM = ";";
+	public static final String PERIOD_DELIM = "@";
+	public static final String ATTR_DELIM = "#";
+	public static final String ATTR_LIST_DELIM = ",";
+
+	private static final Pattern PERIOD_PATTERN = Pattern.compile("(.*)" + PERIOD_DELIM + "(\\d+)(ms|s|m|h)");
+
+	private final ObjectName objName;
+	private final long period;
+	private final String attrList;
+	private final Pattern[] attrPatterns;
+
+	/**
+	 * Create MBean filter with a given object name pattern and sampling period.
+	 *
+	 * @param objName JMX object name pattern
+	 * @param period sampling period in milliseconds, {@code 0} - to use scheduler sampling period
+	 */
+	public SampleFilter(ObjectName objName, long period) {
+		this(objName, null, period);
+	}
+
+	/**
+	 * Create MBean filter with a given object name pattern, attribute list and sampling period.
+	 *
+	 * @param objName JMX object name pattern
+	 * @param attrList comma separated list of attribute names, globs or regular expressions enclosed in slashes,
+	 *            {@code null} - to match all attributes
+	 * @param period sampling period in milliseconds, {@code 0} - to use scheduler sampling period
+	 * @throws IllegalArgumentException if attribute list contains malformed regular expression
+	 */
+	public SampleFilter(ObjectName objName, String attrList, long period) {
+		this.objName = objName;
+		this.period = period;
+		this.attrList = attrList == null || attrList.trim().isEmpty() ? null : attrList.trim();
+		this.attrPatterns = this.attrList == null ? null : compileAttrList(this.attrList);
+	}
+
+	private static Pattern[] compileAttrList(String attrList) {
+		List<Pattern> patterns = new ArrayList<Pattern>();
+		StringTokenizer atk = new StringTokenizer(attrList, ATTR_LIST_DELIM);
+		while (atk.hasMoreTokens()) {
+			String attr = atk.nextToken().trim();
+			if (attr.length() > 1 && attr.startsWith("/") && attr.endsWith("/")) {
+				patterns.add(Pattern.compile(attr.substring(1, attr.length() - 1)));
+			} else if (!attr.isEmpty()) {
+				patterns.add(Pattern.compile(globToRegex(attr)));
+			}
+		}
+		return patterns.toArray(new Pattern[patterns.size()]);
+	}
+
+	private static String globToRegex(String glob) {
+		StringBuilder regex = new StringBuilder(glob.length() + 8);
+		int start = 0;
+		for (int i = 0; i < glob.length(); i++) {
+			char c = glob.charAt(i);
+			if (c == '*' || c == '?') {
+				if (i > start) {
+					regex.append(Pattern.quote(glob.substring(start, i)));
+				}
+				regex.append(c == '*' ? ".*" : ".");
+				start = i + 1;
+			}
+		}
+		if (start < glob.length()) {
+			regex.append(Pattern.quote(glob.substring(start)));
+		}
+		return regex.toString();
+	}
+
+	/**
+	 * Obtain JMX object name pattern of this filter.
+	 *
+	 * @return JMX object name pattern
+	 */
+	public ObjectName getObjectName() {
+		return objName;
+	}
+
+	/**
+	 * Obtain sampling period of MBeans matched by this filter.
+	 *
+	 * @return sampling period in milliseconds, {@code 0} if scheduler sampling period shall be used
+	 */
+	public long getPeriod() {
+		return period;
+	}
+
+	/**
+	 * Test whether a given object name matches this filter.
+	 *
+	 * @param oname object name
+	 * @return {@code true} if object name matches this filter, {@code false} - otherwise
+	 */
+	public boolean apply(ObjectName oname) {
+		return objName.apply(oname);
+	}
+
+	/**
+	 * Determine if this filter defines attribute list.
+	 *
+	 * @return {@code true} if filter has attribute list, {@code false} - if filter matches all attributes
+	 */
+	public boolean hasAttributes() {
+		return attrPatterns != null;
+	}
+
+	/**
+	 * Test whether a given attribute name matches attribute list of this filter.
+	 *
+	 * @param attrName attribute name
+	 * @return {@code true} if attribute name matches any of listed attributes or filter has no attribute list,
+	 *         {@code false} - otherwise
+	 */
+	public boolean applyAttribute(String attrName) {
+		if (attrPatterns == null) {
+			return true;
+		}
+		for (Pattern attrPattern : attrPatterns) {
+			if (attrPattern.matcher(attrName).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		String str = attrList == null ? String.valueOf(objName) : objName + ATTR_DELIM + attrList;
+		return period > 0 ? str + PERIOD_DELIM + period + "ms" : str;
+	}
+
+	/**
+	 * Tokenize a given set of filters into list of MBean filters.
+	 *
+	 * @param filterList semicolon separated set of MBean filters
+	 * @return list of MBean filters
+	 * @throws MalformedObjectNameException if filter contains malformed JMX object name
+	 * @throws IllegalArgumentException if filter contains malformed attribute regular expression
+	 */
+	public static List<SampleFilter> parse(String filterList) throws MalformedObjectNameException {
+		List<SampleFilter> filters = new ArrayList<SampleFilter>(5);
+		for (Token token : tokenize(filterList)) {
+			filters.add(new SampleFilter(new ObjectName(token.objName), token.attrList, token.period));
+		}
+		return filters;
+	}
+
+	/**
+	 * Determine scheduler tick period to sample all MBean filters on their own sampling periods. Tick period is
+	 * greatest common divisor of all filter periods.
+	 *
+	 * @param filterList semicolon separated set of MBean filters
+	 * @param defPeriod default sampling period in milliseconds, used by filters having no period defined
+	 * @return scheduler tick period in milliseconds
+	 */
+	public static long getTickPeriod(String filterList, long defPeriod) {
+		if (filterList == null) {
+			return defPeriod;
+		}
+		long tick = 0;
+		for (Token token : tokenize(filterList)) {
+			tick = gcd(tick, token.period > 0 ? token.period : defPeriod);
+		}
+		return tick > 0 ? tick : defPeriod;
+	}
+
+	/**
+	 * Split a given set of filters into filter tokens. Filter and attribute list delimiters are searched only outside
+	 * quoted object name key property values, and attribute list delimiter is searched only within key properties
+	 * part of object name, so it may be used within object name domain, quoted values and attribute list.
+	 *
+	 * @param filterList semicolon separated set of MBean filters
+	 * @return list of filter tokens
+	 */
+	private static List<Token> tokenize(String filterList) {
+		List<Token> tokens = new ArrayList<Token>(5);
+		int len = filterList.length();
+		int start = 0;
+		while (start < len) {
+			int end = start;
+			int attrIdx = -1;
+			boolean props = false;
+			boolean quoted = false;
+			for (; end < len; end++) {
+				char c = filterList.charAt(end);
+				if (quoted) {
+					if (c == '\\') {
+						end++;
+					} else if (c == '"') {
+						quoted = false;
+					}
+				} else if (filterList.startsWith(FILTER_DELIM, end)) {
+					break;
+				} else if (attrIdx >= 0) {
+					continue;
+				} else if (!props) {
+					props = c == ':';
+				} else if (c == '"') {
+					quoted = true;
+				} else if (filterList.startsWith(ATTR_DELIM, end)) {
+					attrIdx = end;
+				}
+			}
+			end = Math.min(end, len);
+			if (end > start) {
+				tokens.add(attrIdx < 0 ? new Token(filterList.substring(start, end), null)
+						: new Token(filterList.substring(start, attrIdx),
+								filterList.substring(attrIdx + ATTR_DELIM.length(), end)));
+			}
+			start = end + FILTER_DELIM.length();
+		}
+		return tokens;
+	}
+
+	private static long toMillis(String value, String unit) {
+		long period = Long.parseLong(value);
+		if ("h".equals(unit)) {
+			return TimeUnit.HOURS.toMillis(period);
+		} else if ("m".equals(unit)) {
+			return TimeUnit.MINUTES.toMillis(period);
+		} else if ("s".equals(unit)) {
+			return TimeUnit.SECONDS.toMillis(period);
+		}
+		return period;
+	}
+
+	private static long gcd(long a, long b) {
+		while (b > 0) {
+			long t = b;
+			b = a % b;
+			a = t;
+		}
+		return a;
+	}
+
+	/**
+	 * Single MBean filter token split into object name pattern, attribute list and sampling period.
+	 */
+	private static class Token {
+		String objName;
+		String attrList;
+		long period = 0;
+
+		Token(String objName, String attrList) {
+			String tail = attrList == null ? objName : attrList;
+			Matcher m = PERIOD_PATTERN.matcher(tail);
+			if (m.matches()) {
+				tail = m.group(1);
+				period = toMillis(m.group(2), m.group(3));
+			}
+			this.objName = attrList == null ? tail : objName;
+			this.attrList = attrList == null ? null : tail;
+		}
+	}
+}
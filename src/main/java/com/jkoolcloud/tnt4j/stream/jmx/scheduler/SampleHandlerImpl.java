@@ -17,19 +17,27 @@ package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 import javax.management.*;
 import javax.management.relation.MBeanServerNotificationFilter;
 
 import com.jkoolcloud.tnt4j.core.Activity;
+import com.jkoolcloud.tnt4j.core.Property;
 import com.jkoolcloud.tnt4j.core.PropertySnapshot;
 import com.jkoolcloud.tnt4j.stream.jmx.conditions.*;
 import com.jkoolcloud.tnt4j.stream.jmx.core.SampleContext;
 import com.jkoolcloud.tnt4j.stream.jmx.core.SampleListener;
+import com.jkoolcloud.tnt4j.stream.jmx.core.SampleStats;
+import com.jkoolcloud.tnt4j.stream.jmx.core.Sampler;
 import com.jkoolcloud.tnt4j.stream.jmx.core.UnsupportedAttributeException;
+import com.jkoolcloud.tnt4j.stream.jmx.format.BatchSnapshot;
+import com.jkoolcloud.tnt4j.stream.jmx.format.MetricKeys;
+import com.jkoolcloud.tnt4j.stream.jmx.format.SampleBatch;
+import com.jkoolcloud.tnt4j.stream.jmx.format.SimpleTypes;
 import com.jkoolcloud.tnt4j.utils.Utils;
 
 /**
@@ -57,24 +65,144 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	public static String STAT_TOTAL_METRIC_COUNT = "total.metric.count";
 	public static String STAT_LAST_METRIC_COUNT = "last.metric.count";
 	public static String STAT_SAMPLE_TIME_USEC = "sample.time.usec";
+	public static String STAT_TOTAL_EMITTED_COUNT = "total.emitted.count";
+	public static String STAT_TOTAL_SUPPRESSED_COUNT = "total.suppressed.count";
+	public static String STAT_QUARANTINED_ATTR_COUNT = "quarantined.attr.count";
+	public static String STAT_TOTAL_OVERDUE_COUNT = "total.overdue.count";
+	public static String STAT_TOTAL_OVERRUN_COUNT = "total.overrun.count";
+	public static String STAT_TOTAL_SKIP_COUNT = "total.skip.count";
+	public static String STAT_SCHEDULE_LAG_USEC = "schedule.lag.usec";
+	public static String STAT_BUCKET_TIMESTAMP = "bucket.timestamp";
+	public static String STAT_REGISTRATION_QUEUE_DEPTH = "registration.queue.depth";
+	public static String STAT_REGISTRATION_LATENCY_USEC = "registration.latency.usec";
+	public static String STAT_TOTAL_COALESCED_COUNT = "total.coalesced.count";
+	public static String STAT_TOTAL_NOTIFICATION_COUNT = "total.notification.count";
+	public static String STAT_TOTAL_REJECTED_NOTIFICATION_COUNT = "total.rejected.notification.count";
+	public static String STAT_TOTAL_INFO_REFRESH_COUNT = "total.info.refresh.count";
+	public static String STAT_METRIC_KEY_COUNT = "metric.key.count";
+	public static String STAT_TOTAL_METRIC_KEY_OVERFLOW_COUNT = "total.metric.key.overflow.count";
+	public static String STAT_TOTAL_INFO_CHANGE_COUNT = "total.info.change.count";
+
+	/**
+	 * System property name to enable bulk MBean attributes fetching using single
+	 * {@link MBeanServerConnection#getAttributes(ObjectName, String[])} call per MBean.
+	 */
+	public static final String PROP_BULK_FETCH = "com.jkoolcloud.tnt4j.stream.jmx.bulk.fetch";
+	/**
+	 * System property name to define number of worker threads used to sample MBeans in parallel.
+	 */
+	public static final String PROP_PARALLELISM = "com.jkoolcloud.tnt4j.stream.jmx.parallelism";
+	/**
+	 * System property name to enable delta mode: only changed MBean attribute values are added to snapshots.
+	 */
+	public static final String PROP_DELTA_MODE = "com.jkoolcloud.tnt4j.stream.jmx.delta.mode";
+	/**
+	 * System property name to define number of MBean samples between full (keyframe) snapshots in delta mode.
+	 */
+	public static final String PROP_DELTA_KEYFRAME = "com.jkoolcloud.tnt4j.stream.jmx.delta.keyframe";
+	/**
+	 * System property name to define sampling cycle time budget in milliseconds. MBeans not sampled within budget are
+	 * skipped until next cycle.
+	 */
+	public static final String PROP_CYCLE_BUDGET = "com.jkoolcloud.tnt4j.stream.jmx.cycle.budget";
+	/**
+	 * System property name to define single MBean sampling time budget in milliseconds. MBean attributes not sampled
+	 * within budget are skipped until next cycle, attributes exceeding budget alone are quarantined.
+	 */
+	public static final String PROP_MBEAN_BUDGET = "com.jkoolcloud.tnt4j.stream.jmx.mbean.budget";
+	/**
+	 * System property name to define number of background worker threads used to resolve queued MBean registration
+	 * events.
+	 */
+	public static final String PROP_REGISTRATION_THREADS = "com.jkoolcloud.tnt4j.stream.jmx.registration.threads";
+	/**
+	 * System property name to enable columnar batch format: sampled MBean snapshots are moved into single columnar
+	 * batch per sampling cycle activity, keeping numeric values unboxed until formatted.
+	 */
+	public static final String PROP_COLUMNAR_BATCH = "com.jkoolcloud.tnt4j.stream.jmx.columnar.batch";
+	/**
+	 * System property name to define MBean info time to live in milliseconds. MBean info of sampled MBeans is
+	 * revalidated in background when time to live elapses, {@code 0} - MBean info is never revalidated.
+	 */
+	public static final String PROP_INFO_TTL = "com.jkoolcloud.tnt4j.stream.jmx.info.ttl";
+	/**
+	 * System property name to define maximal random delay in milliseconds added to MBean info time to live of every
+	 * MBean.
+	 */
+	public static final String PROP_INFO_JITTER = "com.jkoolcloud.tnt4j.stream.jmx.info.jitter";
+
+	private static final int PARTITIONS_PER_WORKER = 4;
 
 	private final ReentrantLock lock = new ReentrantLock();
 
 	String mbeanIncFilter, mbeanExcFilter;
-	long sampleCount = 0, totalMetricCount = 0, totalActionCount = 0;
-	long lastMetricCount = 0, lastSampleTimeUsec = 0;
-	long noopCount = 0, excCount = 0, errorCount = 0;
+	long tickPeriod, defPeriod;
+	long tickCount = 0, cycleTick = 0;
+	int subTick = 0, subTicks = 1;
+	int cycleMetricCount = 0;
+	long cycleSampleNanos = 0;
+	final AtomicLong sampleCount = new AtomicLong();
+	final AtomicLong totalMetricCount = new AtomicLong();
+	final AtomicLong lastMetricCount = new AtomicLong();
+	final AtomicLong lastSampleTimeUsec = new AtomicLong();
+	final AtomicLong noopCount = new AtomicLong();
+	final AtomicLong totalActionCount = new AtomicLong();
+	final AtomicLong excCount = new AtomicLong();
+	final AtomicLong errorCount = new AtomicLong();
+	final AtomicLong emittedCount = new AtomicLong();
+	final AtomicLong suppressedCount = new AtomicLong();
+	final AtomicLong overdueCount = new AtomicLong();
+	final AtomicLong overrunCount = new AtomicLong();
+	final AtomicLong skipCount = new AtomicLong();
+	final AtomicLong lastLagUsec = new AtomicLong();
+	final AtomicLong notificationCount = new AtomicLong();
+	final AtomicLong rejectedNotificationCount = new AtomicLong();
+	final AtomicLong infoRefreshCount = new AtomicLong();
+	final AtomicLong infoChangeCount = new AtomicLong();
+	volatile long bucketTime = 0;
+	boolean bulkFetch = Boolean.getBoolean(PROP_BULK_FETCH);
+	int parallelism = Math.max(1, Integer.getInteger(PROP_PARALLELISM, 1));
+	boolean deltaMode = Boolean.getBoolean(PROP_DELTA_MODE);
+	int keyframeCycles = Math.max(1, Integer.getInteger(PROP_DELTA_KEYFRAME, 10));
+	volatile long cycleBudgetNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong(PROP_CYCLE_BUDGET, 0));
+	volatile long mbeanBudgetNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong(PROP_MBEAN_BUDGET, 0));
+	volatile long cycleDeadline = 0;
+	boolean columnarBatch = Boolean.getBoolean(PROP_COLUMNAR_BATCH);
+	SampleBatch batch;
+	Activity batchActivity;
+	int batchCapacity = 0;
+	long cycleTimeUsec = 0, cycleNanos = 0;
+	final ThreadLocal<SampleCursor> cursors = new ThreadLocal<SampleCursor>() {
+		@Override
+		protected SampleCursor initialValue() {
+			return new SampleCursor();
+		}
+	};
+	final SampleQuarantine quarantine = new SampleQuarantine();
+	final RegistrationQueue registrations = new RegistrationQueue(this,
+			Integer.getInteger(PROP_REGISTRATION_THREADS, 2));
+	final InfoRefreshQueue infoRefreshes = new InfoRefreshQueue(Long.getLong(PROP_INFO_TTL, 0),
+			Long.getLong(PROP_INFO_JITTER, Long.getLong(PROP_INFO_TTL, 0) / 10));
+	final Set<ObjectName> infoListeners = Collections.newSetFromMap(new ConcurrentHashMap<ObjectName, Boolean>());
+	final NotificationFilterSupport infoFilter = MBeanMetadata.newInfoChangedFilter();
 
 	MBeanServerConnection mbeanServer;
 	SampleContext context;
-	Throwable lastError;
+	volatile Throwable lastError;
+	ExecutorService sampleWorkers;
 
 	MBeanServerNotificationFilter MBeanFilter;
-	List<ObjectName> iFilters = new ArrayList<>(5), eFilters = new ArrayList<>(5);
-	Map<AttributeCondition, AttributeAction> conditions = new LinkedHashMap<AttributeCondition, AttributeAction>(89);
-	ConcurrentHashMap<ObjectName, MBeanInfo> mbeans = new ConcurrentHashMap<ObjectName, MBeanInfo>(89);
+	List<SampleFilter> iFilters = new ArrayList<>(5);
+	List<ObjectName> eFilters = new ArrayList<>(5);
+	List<SampleFilter> aFilters = new ArrayList<>(5);
+	volatile FilterIndex<SampleFilter> iIndex = new FilterIndex<SampleFilter>();
+	volatile FilterIndex<ObjectName> eIndex = new FilterIndex<ObjectName>();
+	final ConditionRegistry conditions = new ConditionRegistry();
+	ConcurrentHashMap<ObjectName, SamplePlan> mbeans = new ConcurrentHashMap<ObjectName, SamplePlan>(89);
+	ConcurrentHashMap<ObjectName, DeltaState> deltaStates = new ConcurrentHashMap<ObjectName, DeltaState>(89);
 
-	final List<SampleListener> listeners = new ArrayList<>(5);
+	private final Object listenersLock = new Object();
+	volatile SampleListener[] listeners = new SampleListener[0];
 
 	/**
 	 * Create new instance of {@code SampleHandlerImpl} with a given MBean server and a set of filters.
@@ -84,23 +212,44 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 * @param excFilter MBean exclude filters semicolon separated
 	 */
 	public SampleHandlerImpl(MBeanServerConnection mServerConn, String incFilter, String excFilter) {
+		this(mServerConn, incFilter, excFilter, Sampler.JMX_SAMPLE_PERIOD);
+	}
+
+	/**
+	 * Create new instance of {@code SampleHandlerImpl} with a given MBean server, a set of filters and default
+	 * sampling period. Include filters may define own sampling periods, see {@link SampleFilter}.
+	 *
+	 * @param mServerConn MBean server connection instance
+	 * @param incFilter MBean include filters semicolon separated
+	 * @param excFilter MBean exclude filters semicolon separated
+	 * @param period default sampling period in milliseconds
+	 */
+	public SampleHandlerImpl(MBeanServerConnection mServerConn, String incFilter, String excFilter, long period) {
 		mbeanServer = mServerConn;
 		mbeanIncFilter = incFilter;
 		mbeanExcFilter = excFilter;
+		defPeriod = period;
+		tickPeriod = SampleFilter.getTickPeriod(incFilter, period);
 		context = new SampleContextImpl(this);
 	}
 
 	/**
-	 * Tokenize a given set of filters into JMX object names
+	 * Tokenize a given set of exclude filters into JMX object names of excluded MBeans and filters of excluded MBean
+	 * attributes
 	 * 
 	 * @param filter semicolon set of JMX filters
 	 * @param filters list of object names
+	 * @param attrFilters list of attribute exclusion filters
 	 * @throws MalformedObjectNameException
 	 */
-	private static void tokenizeFilters(String filter, List<ObjectName> filters) throws MalformedObjectNameException {
-		StringTokenizer itk = new StringTokenizer(filter, ";");
-		while (itk.hasMoreTokens()) {
-			filters.add(new ObjectName(itk.nextToken()));
+	private static void tokenizeFilters(String filter, List<ObjectName> filters, List<SampleFilter> attrFilters)
+			throws MalformedObjectNameException {
+		for (SampleFilter excFilter : SampleFilter.parse(filter)) {
+			if (excFilter.hasAttributes()) {
+				attrFilters.add(excFilter);
+			} else {
+				filters.add(excFilter.getObjectName());
+			}
 		}
 	}
 
@@ -112,12 +261,56 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 */
 	private void listenForChanges() throws IOException, InstanceNotFoundException {
 		if (MBeanFilter == null) {
-			MBeanFilter = new MBeanServerNotificationFilter();
-			MBeanFilter.enableAllObjectNames();
+			MBeanFilter = buildNotificationFilter(iFilters, eFilters);
 			mbeanServer.addNotificationListener(MBeanServerDelegate.DELEGATE_NAME, this, MBeanFilter, null);
 		}
 	}
 
+	/**
+	 * Translate include/exclude filters into MBean server notification filter. Notification filter is evaluated by
+	 * MBean server, so for remote connections notifications of filtered out MBeans are not sent over the wire. Since
+	 * {@link MBeanServerNotificationFilter} supports exact object names only, object name patterns can't be
+	 * translated: if any include filter is a pattern all object names are enabled, and only exact exclude names are
+	 * disabled. Notifications passing this filter are still tested by {@link #isFilterIncluded(ObjectName)}.
+	 * 
+	 * @param iFilters list of MBean inclusions
+	 * @param eFilters list of MBean exclusions
+	 * @return MBean server notification filter
+	 */
+	static MBeanServerNotificationFilter buildNotificationFilter(List<SampleFilter> iFilters,
+			List<ObjectName> eFilters) {
+		MBeanServerNotificationFilter filter = new MBeanServerNotificationFilter();
+		boolean exactOnly = true;
+		for (SampleFilter incFilter : iFilters) {
+			exactOnly &= !incFilter.getObjectName().isPattern();
+		}
+		if (exactOnly) {
+			filter.disableAllObjectNames();
+			for (SampleFilter incFilter : iFilters) {
+				if (!isExcluded(incFilter.getObjectName(), eFilters)) {
+					filter.enableObjectName(incFilter.getObjectName());
+				}
+			}
+		} else {
+			filter.enableAllObjectNames();
+			for (ObjectName eFilter : eFilters) {
+				if (!eFilter.isPattern()) {
+					filter.disableObjectName(eFilter);
+				}
+			}
+		}
+		return filter;
+	}
+
+	private static boolean isExcluded(ObjectName oname, List<ObjectName> eFilters) {
+		for (ObjectName eFilter : eFilters) {
+			if (eFilter.apply(oname)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Determine if a given object name matches include/exclusion filters
 	 * 
@@ -125,17 +318,167 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 * @return true if included, false otherwise
 	 */
 	public boolean isFilterIncluded(ObjectName oname) {
-		for (ObjectName eFilter : eFilters) {
-			if (eFilter.apply(oname)) {
-				return false;
+		return eIndex.match(oname) == null && iIndex.match(oname) != null;
+	}
+
+	/**
+	 * Determine number of scheduler ticks between samples of a given MBean. Sampling period is defined by first
+	 * include filter matching object name.
+	 * 
+	 * @param incFilter first include filter matching object name
+	 * @return number of scheduler ticks between MBean samples
+	 */
+	private int getSampleTicks(SampleFilter incFilter) {
+		if (incFilter != null) {
+			long period = incFilter.getPeriod() > 0 ? incFilter.getPeriod() : defPeriod;
+			return (int) Math.max(1, period / tickPeriod);
+		}
+		return 1;
+	}
+
+	/**
+	 * Add MBean to sampled MBeans set and run registration listeners. MBean sampling plan is compiled at this point,
+	 * only compact MBean metadata is retained.
+	 * 
+	 * @param oname object name
+	 * @param info MBean info
+	 */
+	void registerMBean(ObjectName oname, MBeanInfo info) {
+		SampleFilter incFilter = iIndex.match(oname);
+		MBeanMetadata meta = MBeanMetadata.of(info);
+		mbeans.put(oname, new SamplePlan(oname, meta, getSampleTicks(incFilter), incFilter, getAttrExclusions(oname),
+				SimpleTypes.isSimplesOnly()));
+		trackInfo(oname, meta);
+		runRegister(oname);
+	}
+
+	/**
+	 * Keep track of MBean info changes: subscribe to MBean info change notifications of MBeans emitting them, or
+	 * schedule MBean info revalidation of MBeans which MBean info is not declared immutable.
+	 * 
+	 * @param oname object name
+	 * @param meta MBean metadata
+	 */
+	private void trackInfo(ObjectName oname, MBeanMetadata meta) {
+		if (meta.notifying) {
+			if (infoListeners.add(oname)) {
+				try {
+					mbeanServer.addNotificationListener(oname, this, infoFilter, null);
+					return;
+				} catch (Exception exc) {
+					infoListeners.remove(oname);
+				}
+			} else {
+				return;
 			}
+		} else if (meta.immutable) {
+			return;
 		}
-		for (ObjectName incFilter : iFilters) {
-			if (incFilter.apply(oname)) {
-				return true;
+		infoRefreshes.schedule(oname);
+	}
+
+	/**
+	 * Revalidate MBean info of sampled MBean. When MBean metadata has changed, MBean sampling plan is recompiled.
+	 * Metadata is compared by value, since interned metadata evicted from bounded interning cache is resolved as new
+	 * instance. Called by registration events queue workers.
+	 * 
+	 * @param oname object name
+	 */
+	void refreshMBean(ObjectName oname) {
+		if (!mbeans.containsKey(oname)) {
+			return;
+		}
+		try {
+			MBeanMetadata meta = MBeanMetadata.of(mbeanServer.getMBeanInfo(oname));
+			infoRefreshCount.incrementAndGet();
+			SamplePlan plan;
+			while ((plan = mbeans.get(oname)) != null && !plan.meta.equals(meta)) {
+				if (mbeans.replace(oname, plan, plan.refresh(meta))) {
+					infoChangeCount.incrementAndGet();
+					break;
+				}
 			}
+			if (plan != null) {
+				trackInfo(oname, meta);
+			}
+		} catch (InstanceNotFoundException exc) {
+			// MBean already unregistered, unregistration event is queued
+		} catch (Throwable ex) {
+			doError(ex);
+		}
+	}
+
+	/**
+	 * Queue MBean info revalidation of MBeans which MBean info time to live has elapsed.
+	 */
+	private void refreshDueInfos() {
+		if (infoRefreshes.isEnabled()) {
+			for (ObjectName oname : infoRefreshes.pollDue(System.nanoTime())) {
+				registrations.refresh(oname);
+			}
+		}
+	}
+
+	/**
+	 * Find attribute exclusion filters matching a given object name.
+	 * 
+	 * @param oname object name
+	 * @return array of matching attribute exclusion filters, {@code null} if there are none
+	 */
+	private SampleFilter[] getAttrExclusions(ObjectName oname) {
+		List<SampleFilter> matching = null;
+		for (SampleFilter aFilter : aFilters) {
+			if (aFilter.apply(oname)) {
+				if (matching == null) {
+					matching = new ArrayList<SampleFilter>(2);
+				}
+				matching.add(aFilter);
+			}
+		}
+		return matching == null ? null : matching.toArray(new SampleFilter[matching.size()]);
+	}
+
+	/**
+	 * Recompile sampling plans of all sampled MBeans from retained MBean metadata and MBean filters.
+	 */
+	public void rebuildPlans() {
+		for (SamplePlan plan : mbeans.values()) {
+			mbeans.replace(plan.name, plan, plan.rebuild());
+		}
+	}
+
+	/**
+	 * Remove MBean from sampled MBeans set, drop MBean state and run unregistration listeners. MBean is removed from
+	 * sampled MBeans set already when unregistration notification is received, so sampling stops without waiting for
+	 * unregistration event to be resolved.
+	 * 
+	 * @param oname object name
+	 */
+	void unregisterMBean(ObjectName oname) {
+		mbeans.remove(oname);
+		deltaStates.remove(oname);
+		conditions.evict(oname);
+		quarantine.evict(oname);
+		MetricKeys.getInstance().evict(oname.getCanonicalName());
+		infoRefreshes.evict(oname);
+		infoListeners.remove(oname);
+		runUnRegister(oname);
+	}
+
+	/**
+	 * Resolve MBean info of registered MBean and add MBean to sampled MBeans set. Called by registration events queue
+	 * workers.
+	 * 
+	 * @param oname object name
+	 */
+	void resolveMBean(ObjectName oname) {
+		try {
+			registerMBean(oname, mbeanServer.getMBeanInfo(oname));
+		} catch (InstanceNotFoundException exc) {
+			// MBean already unregistered, unregistration event is queued
+		} catch (Throwable ex) {
+			doError(ex);
 		}
-		return false;
 	}
 
 	/**
@@ -143,22 +486,26 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 */
 	private void loadMBeans() {
 		try {
-			tokenizeFilters(mbeanIncFilter, iFilters);
+			iFilters = SampleFilter.parse(mbeanIncFilter);
+			List<ObjectName> excFilters = new ArrayList<ObjectName>(5);
+			List<SampleFilter> attrFilters = new ArrayList<SampleFilter>(5);
 			if (!Utils.isEmpty(mbeanExcFilter)) {
-				tokenizeFilters(mbeanExcFilter, eFilters);
+				tokenizeFilters(mbeanExcFilter, excFilters, attrFilters);
 			}
+			eFilters = excFilters;
+			aFilters = attrFilters;
+			indexFilters();
 			listenForChanges();
 
 			// run inclusion
-			for (ObjectName nameFilter : iFilters) {
-				Set<ObjectName> set = mbeanServer.queryNames(nameFilter, nameFilter);
-				if (!eFilters.isEmpty()) {
-					excludeFromSet(set, eFilters);
-				}
-				for (ObjectName oname : set) {
-					mbeans.put(oname, mbeanServer.getMBeanInfo(oname));
-					runRegister(oname);
-				}
+			Set<ObjectName> set = new LinkedHashSet<ObjectName>(89);
+			for (SampleFilter incFilter : iFilters) {
+				ObjectName nameFilter = incFilter.getObjectName();
+				set.addAll(mbeanServer.queryNames(nameFilter, nameFilter));
+			}
+			excludeFromSet(set, eIndex);
+			for (ObjectName oname : set) {
+				registerMBean(oname, mbeanServer.getMBeanInfo(oname));
 			}
 		} catch (Exception ex) {
 			lastError = ex;
@@ -167,19 +514,35 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	}
 
 	/**
-	 * Exclude MBeans based on a list of exclude object name patterns
+	 * Compile include/exclude filter lists into object name pattern indexes used to match MBeans.
+	 */
+	private void indexFilters() {
+		FilterIndex<SampleFilter> incIndex = new FilterIndex<SampleFilter>();
+		for (SampleFilter incFilter : iFilters) {
+			incIndex.add(incFilter.getObjectName(), incFilter);
+		}
+		FilterIndex<ObjectName> excIndex = new FilterIndex<ObjectName>();
+		for (ObjectName eFilter : eFilters) {
+			excIndex.add(eFilter, eFilter);
+		}
+		iIndex = incIndex;
+		eIndex = excIndex;
+	}
+
+	/**
+	 * Exclude MBeans based on an index of exclude object name patterns
 	 * 
 	 * @param objSet JMX object name set
-	 * @param eFilters list of MBean exclusions
+	 * @param eIndex index of MBean exclusions
 	 */
-	private static void excludeFromSet(Set<ObjectName> objSet, List<ObjectName> eFilters) {
-		for (ObjectName ename : eFilters) {
-			Iterator<ObjectName> it = objSet.iterator();
-			while (it.hasNext()) {
-				ObjectName name = it.next();
-				if (ename.apply(name)) {
-					it.remove();
-				}
+	private static void excludeFromSet(Set<ObjectName> objSet, FilterIndex<ObjectName> eIndex) {
+		if (eIndex.isEmpty()) {
+			return;
+		}
+		Iterator<ObjectName> it = objSet.iterator();
+		while (it.hasNext()) {
+			if (eIndex.match(it.next()) != null) {
+				it.remove();
 			}
 		}
 	}
@@ -190,51 +553,446 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 * @param activity
 	 *            instance where sampled MBean attributes are stored
 	 * @return number of metrics loaded from all MBeans
+	 * @throws InterruptedException if interrupted while waiting for parallel sampling workers
 	 */
-	private int sampleMBeans(Activity activity) {
+	private int sampleMBeans(Activity activity) throws InterruptedException {
+		long cycleBudget = cycleBudgetNanos;
+		cycleDeadline = cycleBudget > 0 ? System.nanoTime() + cycleBudget : 0;
+		cycleTimeUsec = Utils.currentTimeUsec();
+		cycleNanos = System.nanoTime();
+		if (parallelism > 1 && mbeans.size() > 1) {
+			return sampleMBeansParallel(activity);
+		}
+
 		int pCount = 0;
-		for (Entry<ObjectName, MBeanInfo> entry : mbeans.entrySet()) {
-			ObjectName name = entry.getKey();
-			MBeanInfo info = entry.getValue();
-			MBeanAttributeInfo[] attr = info.getAttributes();
-
-			PropertySnapshot snapshot = new PropertySnapshot(name.getDomain(), name.getCanonicalName());
-			for (MBeanAttributeInfo jinfo : attr) {
-				AttributeSample sample = AttributeSample.newAttributeSample(activity, snapshot, mbeanServer, name,
-						jinfo);
+		// delta mode filters complete MBean snapshots, so values can't be written straight into batch
+		SampleBatch direct = columnarBatch && !deltaMode ? getBatch(activity) : null;
+		if (cycleBudget > 0) {
+			SamplePlan[] plans = mbeans.values().toArray(new SamplePlan[mbeans.size()]);
+			int offset = getStartOffset(plans.length);
+			for (int i = 0; i < plans.length; i++) {
+				SamplePlan plan = plans[(offset + i) % plans.length];
+				if (plan.isDue(cycleTick, subTick, subTicks)) {
+					pCount += addSnapshot(activity, sampleMBean(activity, plan, direct));
+				}
+			}
+			return pCount;
+		}
+		for (SamplePlan plan : mbeans.values()) {
+			if (plan.isDue(cycleTick, subTick, subTicks)) {
+				pCount += addSnapshot(activity, sampleMBean(activity, plan, direct));
+			}
+		}
+		return pCount;
+	}
+
+	/**
+	 * Obtain index of item to start iterating items on current sampling cycle, when items not iterated within time
+	 * budget are skipped. Start index is rotated every cycle, so items at the end of iteration order are not starved.
+	 * 
+	 * @param size number of items
+	 * @return index of item to start iterating from
+	 */
+	private int getStartOffset(int size) {
+		return size == 0 ? 0 : (int) (cycleTick % size);
+	}
+
+	/**
+	 * Sample MBeans in parallel: MBeans set is partitioned by object name hash and every partition is sampled by
+	 * worker thread into own set of snapshots. Produced snapshots are stored within given activity by calling thread.
+	 * 
+	 * @param activity
+	 *            instance where sampled MBean attributes are stored
+	 * @return number of metrics loaded from all MBeans
+	 * @throws InterruptedException if interrupted while waiting for sampling workers
+	 */
+	private int sampleMBeansParallel(Activity activity) throws InterruptedException {
+		int partCount = parallelism * PARTITIONS_PER_WORKER;
+		List<MBeanPartitionSampler> partitions = new ArrayList<MBeanPartitionSampler>(partCount);
+		for (int i = 0; i < partCount; i++) {
+			partitions.add(new MBeanPartitionSampler(activity));
+		}
+		for (SamplePlan plan : mbeans.values()) {
+			if (plan.isDue(cycleTick, subTick, subTicks)) {
+				partitions.get((plan.name.hashCode() & Integer.MAX_VALUE) % partCount).plans.add(plan);
+			}
+		}
+
+		int pCount = 0;
+		List<Future<List<PropertySnapshot>>> results = getSampleWorkers().invokeAll(partitions);
+		for (Future<List<PropertySnapshot>> result : results) {
+			try {
+				for (PropertySnapshot snapshot : result.get()) {
+					pCount += addSnapshot(activity, snapshot);
+				}
+			} catch (ExecutionException exc) {
+				doError(exc.getCause());
+			}
+		}
+		return pCount;
+	}
+
+	/**
+	 * Obtain executor service running parallel sampling workers. Executor is created on first call.
+	 * 
+	 * @return parallel sampling workers executor service
+	 */
+	private synchronized ExecutorService getSampleWorkers() {
+		if (sampleWorkers == null) {
+			sampleWorkers = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread worker = new Thread(r, "SampleHandlerImpl-worker-" + count.incrementAndGet());
+					worker.setDaemon(true);
+					return worker;
+				}
+			});
+		}
+		return sampleWorkers;
+	}
+
+	/**
+	 * Shutdown parallel sampling and MBean registration workers used by this handler. Workers are recreated if
+	 * parallel sampling is invoked or MBean registration events are queued again.
+	 */
+	public synchronized void shutdown() {
+		if (sampleWorkers != null) {
+			sampleWorkers.shutdown();
+			sampleWorkers = null;
+		}
+		registrations.shutdown();
+	}
+
+	/**
+	 * Store MBean snapshot within given activity, if snapshot is not empty. When columnar batch is enabled, snapshot
+	 * which values were not written straight into batch is copied to batch.
+	 * 
+	 * @param activity
+	 *            instance where sampled MBean attributes are stored
+	 * @param snapshot MBean attributes snapshot
+	 * @return number of metrics contained in snapshot
+	 */
+	private int addSnapshot(Activity activity, PropertySnapshot snapshot) {
+		int size = snapshot.size();
+		if (size > 0) {
+			boolean copy = columnarBatch && !(snapshot instanceof BatchSnapshot);
+			activity.addSnapshot(copy ? getBatch(activity).add(snapshot) : snapshot);
+		}
+		return size;
+	}
+
+	/**
+	 * Obtain columnar batch of a given sampling cycle activity. Batch is created on first call for activity, sized by
+	 * previous cycle batch.
+	 * 
+	 * @param activity sampling cycle activity instance
+	 * @return columnar batch of sampling cycle activity
+	 */
+	private SampleBatch getBatch(Activity activity) {
+		if (batch == null || batchActivity != activity) {
+			batch = new SampleBatch(batchCapacity);
+			batchActivity = activity;
+		}
+		return batch;
+	}
+
+	/**
+	 * Release columnar batch of completed sampling cycle, keeping its size as next batch capacity.
+	 */
+	private void releaseBatch() {
+		if (batch != null) {
+			batchCapacity = batch.size();
+			batch = null;
+			batchActivity = null;
+		}
+	}
+
+	/**
+	 * Sample all attributes defined by MBean sampling plan. When MBean turns out to be unregistered, sampling plan is
+	 * dropped and remaining attributes are not sampled.
+	 * 
+	 * @param activity
+	 *            instance associated with current sample
+	 * @param plan MBean sampling plan
+	 * @param direct columnar batch sampled values are written straight to, {@code null} - to build regular snapshot
+	 * @return snapshot containing sampled MBean attributes
+	 */
+	private PropertySnapshot sampleMBean(Activity activity, SamplePlan plan, SampleBatch direct) {
+		ObjectName name = plan.name;
+		PropertySnapshot snapshot = direct != null ? direct.newSnapshot(name.getDomain(), name.getCanonicalName())
+				: new PropertySnapshot(name.getDomain(), name.getCanonicalName());
+		long deadline = cycleDeadline;
+		if (deadline != 0 && System.nanoTime() - deadline > 0) {
+			overdueCount.addAndGet(plan.attrs.length);
+			return snapshot;
+		}
+		long mbeanBudget = mbeanBudgetNanos;
+		deadline = mbeanBudget > 0 ? System.nanoTime() + mbeanBudget : 0;
+		SampleCursor cursor = cursors.get().begin(cycleTick, cycleTimeUsec, cycleNanos);
+		boolean registered = true;
+		if (bulkFetch) {
+			registered = sampleAttributes(activity, snapshot, plan, deadline, cursor);
+		} else {
+			int offset = deadline != 0 ? getStartOffset(plan.attrs.length) : 0;
+			for (int i = 0; i < plan.attrs.length; i++) {
+				MBeanAttributeInfo jinfo = plan.attrs[(offset + i) % plan.attrs.length];
+				if (isSkipped(plan, jinfo, deadline)) {
+					continue;
+				}
+				AttributeSample sample = cursor.rewind().next(activity, snapshot, mbeanServer, name, jinfo);
+				long started = System.nanoTime();
 				try {
 					if (doPre(sample)) {
 						sample.sample(); // obtain a sample
 						doPost(sample);
 					}
+				} catch (InstanceNotFoundException exc) {
+					registered = dropPlan(plan);
+					break;
 				} catch (Throwable ex) {
 					doError(sample, ex);
 				} finally {
-					if (sample.excludeNext()) {
-						excCount++;
+					trackLatency(plan, jinfo, started);
+					if (registered) {
+						completeSample(sample);
 					}
-					evalAttrConditions(sample);
 				}
 			}
-			if (snapshot.size() > 0) {
-				pCount += snapshot.size();
-				activity.addSnapshot(snapshot);
+		}
+		cursor.rewind();
+		return deltaMode && registered ? filterChanged(name, snapshot) : snapshot;
+	}
+
+	/**
+	 * Drop sampling plan of MBean found to be unregistered while sampling. Sampling plan is dropped, but not
+	 * reported as attribute error. Remaining MBean state is cleaned up once unregistration event is resolved.
+	 * 
+	 * @param plan sampling plan of unregistered MBean
+	 * @return always {@code false}
+	 */
+	private boolean dropPlan(SamplePlan plan) {
+		mbeans.remove(plan.name, plan);
+		return false;
+	}
+
+	/**
+	 * Filter out MBean snapshot properties having values unchanged since last sample. Every
+	 * {@link #setDeltaMode(boolean, int)} defined number of MBean samples full snapshot (keyframe) is produced, so
+	 * consumers can resynchronize MBean state.
+	 * 
+	 * @param name MBean object name
+	 * @param snapshot snapshot containing all sampled MBean attributes
+	 * @return snapshot containing only changed MBean attributes
+	 */
+	private PropertySnapshot filterChanged(ObjectName name, PropertySnapshot snapshot) {
+		DeltaState state = deltaStates.get(name);
+		if (state == null) {
+			state = new DeltaState();
+			deltaStates.put(name, state);
+		}
+		boolean keyframe = state.samples++ % keyframeCycles == 0;
+		PropertySnapshot delta = keyframe ? snapshot : new PropertySnapshot(name.getDomain(), name.getCanonicalName());
+		int suppressed = 0;
+		for (Property prop : snapshot.getSnapshot()) {
+			boolean known = state.values.containsKey(prop.getKey());
+			Object lastValue = state.values.put(prop.getKey(), prop.getValue());
+			if (known && Objects.deepEquals(lastValue, prop.getValue())) {
+				suppressed++;
+			} else if (!keyframe) {
+				delta.add(prop.getKey(), prop.getValue());
 			}
 		}
-		return pCount;
+		if (keyframe) {
+			emittedCount.addAndGet(snapshot.size());
+		} else {
+			emittedCount.addAndGet(delta.size());
+			suppressedCount.addAndGet(suppressed);
+		}
+		return delta;
 	}
 
 	/**
-	 * Run and evaluate all registered conditions and invoke associated {@code MBeanAction} instances.
+	 * Sample all attributes of a given MBean fetching their values using single
+	 * {@link MBeanServerConnection#getAttributes(ObjectName, String[])} call. Attributes missing in bulk fetch result
+	 * are sampled one by one, so their errors get reported to listeners.
+	 * <p>
+	 * MBean sampling deadline is checked only while selecting attributes to fetch, and bulk fetch call itself is not
+	 * interrupted. Bulk fetch latency can't be attributed to a single attribute, so only attributes sampled one by
+	 * one are subject to quarantine.
+	 * 
+	 * @param activity instance where sampled MBean attributes are stored
+	 * @param snapshot snapshot instance where sampled MBean attributes are stored
+	 * @param plan MBean sampling plan
+	 * @param deadline MBean sampling deadline as {@link System#nanoTime()} value, {@code 0} - if there is no deadline
+	 * @param cursor attribute samples pool of current thread
+	 * @return {@code true} if MBean is still registered, {@code false} - if MBean sampling plan has been dropped
+	 */
+	private boolean sampleAttributes(Activity activity, PropertySnapshot snapshot, SamplePlan plan, long deadline,
+			SampleCursor cursor) {
+		MBeanAttributeInfo[] attr = plan.attrs;
+		AttributeSample[] samples = new AttributeSample[attr.length];
+		int preCount = 0;
+		int offset = deadline != 0 ? getStartOffset(attr.length) : 0;
+		for (int i = 0; i < attr.length; i++) {
+			int idx = (offset + i) % attr.length;
+			if (isSkipped(plan, attr[idx], deadline)) {
+				continue;
+			}
+			AttributeSample sample = cursor.next(activity, snapshot, mbeanServer, plan.name, attr[idx]);
+			try {
+				if (doPre(sample)) {
+					samples[idx] = sample;
+					preCount++;
+					continue;
+				}
+			} catch (Throwable ex) {
+				doError(sample, ex);
+			}
+			completeSample(sample);
+		}
+
+		String[] attrNames = plan.attrNames;
+		if (preCount < attr.length) {
+			attrNames = new String[preCount];
+			for (int i = 0, j = 0; i < samples.length; i++) {
+				if (samples[i] != null) {
+					attrNames[j++] = plan.attrNames[i];
+				}
+			}
+		}
+		Map<String, Object> values = fetchAttributes(plan.name, attrNames);
+		if (values == null) {
+			return dropPlan(plan);
+		}
+		boolean registered = true;
+		for (AttributeSample sample : samples) {
+			if (sample == null) {
+				continue;
+			}
+			long started = System.nanoTime();
+			boolean fetched = true;
+			try {
+				String attrName = sample.getAttributeInfo().getName();
+				if (values.containsKey(attrName)) {
+					sample.sample(values.get(attrName));
+				} else {
+					fetched = false;
+					sample.sample(); // obtain a sample
+				}
+				doPost(sample);
+			} catch (InstanceNotFoundException exc) {
+				registered = dropPlan(plan);
+				break;
+			} catch (Throwable ex) {
+				doError(sample, ex);
+			} finally {
+				if (!fetched) {
+					trackLatency(plan, sample.getAttributeInfo(), started);
+				}
+				if (registered) {
+					completeSample(sample);
+				}
+			}
+		}
+		return registered;
+	}
+
+	/**
+	 * Determine if MBean attribute sampling shall be skipped on current cycle, because attribute is quarantined or
+	 * MBean sampling time budget is exceeded.
+	 * 
+	 * @param plan MBean sampling plan
+	 * @param attr MBean attribute info
+	 * @param deadline MBean sampling deadline as {@link System#nanoTime()} value, {@code 0} - if there is no deadline
+	 * @return {@code true} if attribute shall not be sampled, {@code false} - otherwise
+	 */
+	private boolean isSkipped(SamplePlan plan, MBeanAttributeInfo attr, long deadline) {
+		if (deadline == 0) {
+			return false;
+		}
+		if (quarantine.isQuarantined(plan.name, attr.getName(), cycleTick)) {
+			return true;
+		}
+		if (System.nanoTime() - deadline > 0) {
+			overdueCount.incrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Record MBean attribute sampling latency, when MBean sampling time budget is defined. Attributes exceeding MBean
+	 * sampling time budget are quarantined.
+	 * 
+	 * @param plan MBean sampling plan
+	 * @param attr MBean attribute info
+	 * @param started attribute sampling start time as {@link System#nanoTime()} value
+	 */
+	private void trackLatency(SamplePlan plan, MBeanAttributeInfo attr, long started) {
+		long mbeanBudget = mbeanBudgetNanos;
+		if (mbeanBudget > 0) {
+			quarantine.update(plan.name, attr.getName(), System.nanoTime() - started, mbeanBudget, cycleTick,
+					plan.ticks);
+		}
+	}
+
+	/**
+	 * Fetch values of given MBean attributes using single
+	 * {@link MBeanServerConnection#getAttributes(ObjectName, String[])} call.
+	 * 
+	 * @param name MBean object name
+	 * @param attrNames MBean attribute names
+	 * @return map of fetched attribute values keyed by attribute name, empty map if bulk fetch fails, {@code null} if
+	 *         MBean is not registered
+	 */
+	private Map<String, Object> fetchAttributes(ObjectName name, String[] attrNames) {
+		if (attrNames.length == 0) {
+			return Collections.emptyMap();
+		}
+		Map<String, Object> values = new HashMap<String, Object>(attrNames.length);
+		try {
+			AttributeList aList = mbeanServer.getAttributes(name, attrNames);
+			for (Attribute attr : aList.asList()) {
+				values.put(attr.getName(), attr.getValue());
+			}
+		} catch (InstanceNotFoundException exc) {
+			return null;
+		} catch (Exception exc) {
+			// fall back to sampling attributes one by one
+		}
+		return values;
+	}
+
+	/**
+	 * Complete attribute sample processing: count attribute exclusion and run registered conditions. Sampling plan
+	 * is left unchanged, listeners decide whether to exclude attribute again on every sample.
+	 * 
+	 * @param sample MBean sample instance
+	 */
+	private void completeSample(AttributeSample sample) {
+		if (sample.excludeNext()) {
+			excCount.incrementAndGet();
+		}
+		evalAttrConditions(sample);
+	}
+
+	/**
+	 * Run and evaluate registered conditions able to match sampled MBean attribute and invoke associated
+	 * {@code MBeanAction} instances.
 	 * 
 	 * @param sample MBean sample instance
 	 * @see AttributeSample
+	 * @see ConditionRegistry
 	 */
 	protected void evalAttrConditions(AttributeSample sample) {
-		for (Map.Entry<AttributeCondition, AttributeAction> entry : conditions.entrySet()) {
-			if (entry.getKey().evaluate(sample)) {
-				totalActionCount++;
-				entry.getValue().action(context, entry.getKey(), sample);
+		ConditionRegistry.Binding[] cands = conditions.getCandidates(sample.getObjetName(),
+				sample.getAttributeInfo().getName());
+		for (ConditionRegistry.Binding binding : cands) {
+			if (binding.condition.evaluate(sample)) {
+				totalActionCount.incrementAndGet();
+				binding.action.action(context, binding.condition, sample);
 			}
 		}
 	}
@@ -246,23 +1004,47 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 * @return snapshot instance containing metrics at the end of each sample
 	 */
 	private PropertySnapshot finish(Activity activity) {
+		SampleStats stats = context.getStats();
 		PropertySnapshot snapshot = new PropertySnapshot(activity.getName(), "SampleContext");
-		snapshot.add(STAT_NOOP_COUNT, noopCount);
-		snapshot.add(STAT_SAMPLE_COUNT, sampleCount);
-		snapshot.add(STAT_TOTAL_ERROR_COUNT, errorCount);
-		snapshot.add(STAT_TOTAL_EXCLUDE_COUNT, excCount);
-		snapshot.add(STAT_MBEAN_COUNT, mbeans.size());
+		snapshot.add(STAT_NOOP_COUNT, stats.getTotalNoopCount());
+		snapshot.add(STAT_SAMPLE_COUNT, stats.getSampleCount());
+		snapshot.add(STAT_TOTAL_ERROR_COUNT, stats.getTotalErrorCount());
+		snapshot.add(STAT_TOTAL_EXCLUDE_COUNT, stats.getExcludeAttrCount());
+		snapshot.add(STAT_MBEAN_COUNT, stats.getMBeanCount());
 		snapshot.add(STAT_CONDITION_COUNT, conditions.size());
-		snapshot.add(STAT_LISTENER_COUNT, listeners.size());
-		snapshot.add(STAT_TOTAL_ACTION_COUNT, totalActionCount);
-		snapshot.add(STAT_TOTAL_METRIC_COUNT, totalMetricCount);
-		snapshot.add(STAT_LAST_METRIC_COUNT, lastMetricCount);
-		snapshot.add(STAT_SAMPLE_TIME_USEC, lastSampleTimeUsec);
+		snapshot.add(STAT_LISTENER_COUNT, listeners.length);
+		snapshot.add(STAT_TOTAL_ACTION_COUNT, totalActionCount.get());
+		snapshot.add(STAT_TOTAL_METRIC_COUNT, stats.getTotalMetricCount());
+		snapshot.add(STAT_LAST_METRIC_COUNT, stats.getLastMetricCount());
+		snapshot.add(STAT_SAMPLE_TIME_USEC, stats.getLastSampleUsec());
+		snapshot.add(STAT_TOTAL_OVERRUN_COUNT, stats.getTotalOverrunCount());
+		snapshot.add(STAT_TOTAL_SKIP_COUNT, stats.getTotalSkipCount());
+		snapshot.add(STAT_SCHEDULE_LAG_USEC, stats.getLastScheduleLagUsec());
+		snapshot.add(STAT_REGISTRATION_QUEUE_DEPTH, stats.getRegistrationQueueDepth());
+		snapshot.add(STAT_REGISTRATION_LATENCY_USEC, stats.getLastRegistrationLatencyUsec());
+		snapshot.add(STAT_TOTAL_COALESCED_COUNT, stats.getTotalCoalescedCount());
+		snapshot.add(STAT_TOTAL_NOTIFICATION_COUNT, stats.getTotalNotificationCount());
+		snapshot.add(STAT_TOTAL_REJECTED_NOTIFICATION_COUNT, stats.getTotalRejectedNotificationCount());
+		snapshot.add(STAT_TOTAL_INFO_REFRESH_COUNT, stats.getTotalInfoRefreshCount());
+		snapshot.add(STAT_TOTAL_INFO_CHANGE_COUNT, stats.getTotalInfoChangeCount());
+		snapshot.add(STAT_METRIC_KEY_COUNT, MetricKeys.getInstance().size());
+		snapshot.add(STAT_TOTAL_METRIC_KEY_OVERFLOW_COUNT, MetricKeys.getInstance().getOverflowCount());
+		if (bucketTime > 0) {
+			snapshot.add(STAT_BUCKET_TIMESTAMP, bucketTime);
+		}
+		if (deltaMode) {
+			snapshot.add(STAT_TOTAL_EMITTED_COUNT, stats.getTotalEmittedCount());
+			snapshot.add(STAT_TOTAL_SUPPRESSED_COUNT, stats.getTotalSuppressedCount());
+		}
+		if (cycleBudgetNanos > 0 || mbeanBudgetNanos > 0) {
+			snapshot.add(STAT_QUARANTINED_ATTR_COUNT, stats.getQuarantinedAttrCount());
+			snapshot.add(STAT_TOTAL_OVERDUE_COUNT, stats.getTotalOverdueCount());
+		}
 
 		// get custom statistics
-		Map<String, Object> stats = new HashMap<String, Object>();
-		doStats(stats);
-		snapshot.addAll(stats);
+		Map<String, Object> cStats = new HashMap<String, Object>();
+		doStats(cStats);
+		snapshot.addAll(cStats);
 
 		activity.addSnapshot(snapshot);
 		return snapshot;
@@ -272,12 +1054,15 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	public void started(Activity activity) {
 		lock.lock();
 		try {
-			lastError = null; // reset last sample error
+			if (subTick == 0) {
+				lastError = null; // reset last sample error
+				cycleTick = tickCount++;
+			}
 			runPre(activity);
 			if ((!activity.isNoop()) && (mbeans.isEmpty())) {
 				loadMBeans();
 			} else if (activity.isNoop()) {
-				noopCount++;
+				noopCount.incrementAndGet();
 			}
 		} finally {
 			lock.unlock();
@@ -290,49 +1075,122 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 			lock.lock();
 			try {
 				long started = System.nanoTime();
-				sampleCount++;
-				lastMetricCount = sampleMBeans(activity);
-				totalMetricCount += lastMetricCount;
-				lastSampleTimeUsec = (System.nanoTime() - started) / 1000;
+				sampleCount.incrementAndGet();
+				int metricCount = cycleMetricCount + sampleMBeans(activity);
+				lastMetricCount.set(metricCount);
+				totalMetricCount.addAndGet(metricCount);
+				lastSampleTimeUsec.set((cycleSampleNanos + System.nanoTime() - started) / 1000);
+				cycleMetricCount = 0;
+				cycleSampleNanos = 0;
 
 				// run post listeners
 				runPost(activity);
 				if (activity.isNoop()) {
-					noopCount++;
+					noopCount.incrementAndGet();
 				}
 				// compute sampling statistics
 				finish(activity);
+				refreshDueInfos();
 			} catch (Throwable ex) {
 				doError(ex);
 			} finally {
+				releaseBatch();
 				lock.unlock();
 			}
 		}
 	}
 
 	/**
-	 * Reset all counters maintained by sampling handler
+	 * Set sub-tick of current sampling cycle. When sampling cycle is split into several sub-ticks, every sub-tick
+	 * samples only MBeans assigned to it, so sampling load is spread over sampling period.
 	 * 
-	 * @return instance to the sampling context
+	 * @param subTick sub-tick index within sampling cycle
+	 * @param subTicks number of sub-ticks within sampling cycle
 	 */
-	public SampleContext resetCounters() {
+	void subTick(int subTick, int subTicks) {
+		this.subTick = subTick;
+		this.subTicks = Math.max(1, subTicks);
+	}
+
+	/**
+	 * Sample MBeans assigned to current sub-tick into a given sampling cycle activity, which is still running.
+	 * Sampled metrics and sampling time are accounted to sampling cycle statistics when activity is stopped.
+	 * 
+	 * @param activity sampling cycle activity instance
+	 */
+	void sampleSubTick(Activity activity) {
+		if (activity.isNoop()) {
+			return;
+		}
 		lock.lock();
 		try {
-			sampleCount = 0;
-			totalMetricCount = 0;
-			totalActionCount = 0;
-			lastMetricCount = 0;
-			lastSampleTimeUsec = 0;
-			noopCount = 0;
-			excCount = 0;
-			errorCount = 0;
-			lastError = null;
-			return context;
+			long started = System.nanoTime();
+			cycleMetricCount += sampleMBeans(activity);
+			cycleSampleNanos += System.nanoTime() - started;
+		} catch (Throwable ex) {
+			doError(ex);
 		} finally {
 			lock.unlock();
 		}
 	}
 
+	/**
+	 * Reset all counters maintained by sampling handler. Counters are reset without waiting for running sampling
+	 * cycle to complete.
+	 * 
+	 * @return instance to the sampling context
+	 */
+	public SampleContext resetCounters() {
+		sampleCount.set(0);
+		totalMetricCount.set(0);
+		totalActionCount.set(0);
+		lastMetricCount.set(0);
+		lastSampleTimeUsec.set(0);
+		noopCount.set(0);
+		excCount.set(0);
+		errorCount.set(0);
+		emittedCount.set(0);
+		suppressedCount.set(0);
+		overdueCount.set(0);
+		overrunCount.set(0);
+		skipCount.set(0);
+		lastLagUsec.set(0);
+		notificationCount.set(0);
+		rejectedNotificationCount.set(0);
+		infoRefreshCount.set(0);
+		infoChangeCount.set(0);
+		registrations.resetCounters();
+		lastError = null;
+		return context;
+	}
+
+	/**
+	 * Record sampling cycle start: scheduling lag, time elapsed since scheduled cycle start until actual cycle start,
+	 * and logical bucket timestamp of wall clock aligned cycle.
+	 * 
+	 * @param lagNanos scheduling lag in nanoseconds
+	 * @param bucketMs logical bucket timestamp in milliseconds, {@code 0} - if cycle is not aligned
+	 */
+	void scheduleStart(long lagNanos, long bucketMs) {
+		lastLagUsec.set(Math.max(0, lagNanos) / 1000);
+		bucketTime = bucketMs;
+	}
+
+	/**
+	 * Record sampling cycle overrun and number of cycles skipped due to overrun.
+	 * 
+	 * @param overrun {@code true} if sampling cycle took longer than sampling period
+	 * @param skipped number of skipped sampling cycles
+	 */
+	void scheduleOverrun(boolean overrun, long skipped) {
+		if (overrun) {
+			overrunCount.incrementAndGet();
+		}
+		if (skipped > 0) {
+			skipCount.addAndGet(skipped);
+		}
+	}
+
 	/**
 	 * Run {@link com.jkoolcloud.tnt4j.stream.jmx.core.SampleListener#register(SampleContext, ObjectName)} for all
 	 * registered listeners.
@@ -340,10 +1198,8 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 * @param name MBean object name
 	 */
 	private void runRegister(ObjectName name) {
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.register(context, name);
-			}
+		for (SampleListener lst : listeners) {
+			lst.register(context, name);
 		}
 	}
 
@@ -354,10 +1210,8 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 * @param name MBean object name
 	 */
 	private void runUnRegister(ObjectName name) {
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.unregister(context, name);
-			}
+		for (SampleListener lst : listeners) {
+			lst.unregister(context, name);
 		}
 	}
 
@@ -368,10 +1222,8 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 * @param activity sampling activity instance
 	 */
 	private void runPost(Activity activity) {
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.post(context, activity);
-			}
+		for (SampleListener lst : listeners) {
+			lst.post(context, activity);
 		}
 	}
 
@@ -382,10 +1234,8 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 * @param activity sampling activity instance
 	 */
 	private void runPre(Activity activity) {
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.pre(context, activity);
-			}
+		for (SampleListener lst : listeners) {
+			lst.pre(context, activity);
 		}
 	}
 
@@ -397,10 +1247,8 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 * @param sample current attribute sample instance
 	 */
 	private boolean doPre(AttributeSample sample) {
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.pre(context, sample);
-			}
+		for (SampleListener lst : listeners) {
+			lst.pre(context, sample);
 		}
 		return !sample.excludeNext();
 	}
@@ -414,10 +1262,8 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 * @throws UnsupportedAttributeException
 	 */
 	private void doPost(AttributeSample sample) throws UnsupportedAttributeException {
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.post(context, sample);
-			}
+		for (SampleListener lst : listeners) {
+			lst.post(context, sample);
 		}
 	}
 
@@ -429,13 +1275,11 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 * @param ex exception associated with the error
 	 */
 	private void doError(AttributeSample sample, Throwable ex) {
-		errorCount++;
+		errorCount.incrementAndGet();
 		lastError = ex;
 		sample.setError(ex);
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.error(context, sample);
-			}
+		for (SampleListener lst : listeners) {
+			lst.error(context, sample);
 		}
 	}
 
@@ -446,12 +1290,10 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 * @param ex exception associated with the error
 	 */
 	private void doError(Throwable ex) {
-		errorCount++;
+		errorCount.incrementAndGet();
 		lastError = ex;
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.error(context, ex);
-			}
+		for (SampleListener lst : listeners) {
+			lst.error(context, ex);
 		}
 	}
 
@@ -462,16 +1304,14 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 * @param stats map of key/value statistics
 	 */
 	private void doStats(Map<String, Object> stats) {
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.getStats(context, stats);
-			}
+		for (SampleListener lst : listeners) {
+			lst.getStats(context, stats);
 		}
 	}
 
 	@Override
 	public SampleHandler register(AttributeCondition cond, AttributeAction action) {
-		conditions.put(cond, (action == null ? NoopAction.NOOP : action));
+		conditions.register(cond, (action == null ? NoopAction.NOOP : action));
 		return this;
 	}
 
@@ -483,13 +1323,100 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 
 	@Override
 	public SampleHandler addListener(SampleListener listener) {
-		listeners.add(listener);
+		synchronized (listenersLock) {
+			SampleListener[] lsts = Arrays.copyOf(listeners, listeners.length + 1);
+			lsts[lsts.length - 1] = listener;
+			listeners = lsts;
+		}
 		return this;
 	}
 
 	@Override
 	public SampleHandler removeListener(SampleListener listener) {
-		listeners.remove(listener);
+		synchronized (listenersLock) {
+			List<SampleListener> lsts = new ArrayList<SampleListener>(Arrays.asList(listeners));
+			if (lsts.remove(listener)) {
+				listeners = lsts.toArray(new SampleListener[lsts.size()]);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Obtain scheduler tick period required to sample MBeans on sampling periods defined by include filters.
+	 * 
+	 * @return scheduler tick period in milliseconds
+	 */
+	public long getTickPeriod() {
+		return tickPeriod;
+	}
+
+	/**
+	 * Set number of worker threads used to sample MBeans in parallel. Value {@code 1} means all MBeans are sampled
+	 * serially by scheduler thread. Default value is defined by system property {@value #PROP_PARALLELISM}.
+	 * 
+	 * @param threads number of parallel sampling worker threads
+	 * @return instance of this sample handler
+	 */
+	public SampleHandlerImpl setParallelism(int threads) {
+		lock.lock();
+		try {
+			this.parallelism = Math.max(1, threads);
+			shutdown();
+		} finally {
+			lock.unlock();
+		}
+		return this;
+	}
+
+	/**
+	 * Enable/disable delta mode, when only MBean attribute values changed since last sample are added to snapshots.
+	 * Default values are defined by system properties {@value #PROP_DELTA_MODE} and {@value #PROP_DELTA_KEYFRAME}.
+	 * 
+	 * @param delta {@code true} to add only changed attribute values, {@code false} - to add all attribute values
+	 * @param keyframe number of MBean samples between full snapshots containing all attribute values
+	 * @return instance of this sample handler
+	 */
+	public SampleHandlerImpl setDeltaMode(boolean delta, int keyframe) {
+		lock.lock();
+		try {
+			this.deltaMode = delta;
+			this.keyframeCycles = Math.max(1, keyframe);
+			deltaStates.clear();
+		} finally {
+			lock.unlock();
+		}
+		return this;
+	}
+
+	/**
+	 * Set sampling time budgets. MBeans not sampled within cycle budget and MBean attributes not sampled within MBean
+	 * budget are skipped until next cycle. MBean attributes exceeding MBean budget alone are quarantined: they are
+	 * re-probed after exponentially growing number of MBean sampling periods, and released when sampled within budget.
+	 * Budgets are soft: sampling call already in progress is not interrupted. Position MBeans and MBean attributes
+	 * sampling starts from is rotated every cycle, so the ones at the end of sampling order are not starved. Default
+	 * values are defined by system properties {@value #PROP_CYCLE_BUDGET} and {@value #PROP_MBEAN_BUDGET}.
+	 * 
+	 * @param cycleMs sampling cycle time budget in milliseconds, {@code 0} - for no budget
+	 * @param mbeanMs single MBean sampling time budget in milliseconds, {@code 0} - for no budget
+	 * @return instance of this sample handler
+	 */
+	public SampleHandlerImpl setTimeBudget(long cycleMs, long mbeanMs) {
+		this.cycleBudgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, cycleMs));
+		this.mbeanBudgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, mbeanMs));
+		return this;
+	}
+
+	/**
+	 * Enable/disable bulk MBean attributes fetching using single
+	 * {@link MBeanServerConnection#getAttributes(ObjectName, String[])} call per MBean. Default value is defined by
+	 * system property {@value #PROP_BULK_FETCH}.
+	 * 
+	 * @param bulk {@code true} to fetch all MBean attributes at once, {@code false} - to fetch attributes one by one
+	 * @return instance of this sample handler
+	 */
+	public SampleHandlerImpl setBulkFetch(boolean bulk) {
+		this.bulkFetch = bulk;
 		return this;
 	}
 
@@ -502,20 +1429,50 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	public void handleNotification(Notification notification, Object handback) {
 		if (notification instanceof MBeanServerNotification) {
 			MBeanServerNotification mbeanEvent = (MBeanServerNotification) notification;
-			if (mbeanEvent.getType().equalsIgnoreCase(MBeanServerNotification.REGISTRATION_NOTIFICATION)) {
-				try {
-					if (isFilterIncluded(mbeanEvent.getMBeanName())) {
-						mbeans.put(mbeanEvent.getMBeanName(), mbeanServer.getMBeanInfo(mbeanEvent.getMBeanName()));
-						runRegister(mbeanEvent.getMBeanName());
-					}
-				} catch (Throwable ex) {
-					doError(ex);
-				}
+			notificationCount.incrementAndGet();
+			if (!isFilterIncluded(mbeanEvent.getMBeanName())) {
+				// notification not filtered out by MBean server
+				rejectedNotificationCount.incrementAndGet();
+			} else if (mbeanEvent.getType().equalsIgnoreCase(MBeanServerNotification.REGISTRATION_NOTIFICATION)) {
+				registrations.register(mbeanEvent.getMBeanName());
 			} else if (mbeanEvent.getType().equalsIgnoreCase(MBeanServerNotification.UNREGISTRATION_NOTIFICATION)) {
+				// stop sampling right away, listeners and MBean state are handled by registration events queue
 				mbeans.remove(mbeanEvent.getMBeanName());
-				runUnRegister(mbeanEvent.getMBeanName());
+				registrations.unregister(mbeanEvent.getMBeanName());
 			}
+		} else if (MBeanMetadata.INFO_CHANGED_NOTIFICATION.equals(notification.getType())
+				&& notification.getSource() instanceof ObjectName) {
+			registrations.refresh((ObjectName) notification.getSource());
 		}
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Samples a partition of MBeans set on parallel sampling worker thread.
+	 */
+	private class MBeanPartitionSampler implements Callable<List<PropertySnapshot>> {
+		final Activity activity;
+		final List<SamplePlan> plans = new ArrayList<SamplePlan>();
+
+		MBeanPartitionSampler(Activity activity) {
+			this.activity = activity;
+		}
+
+		@Override
+		public List<PropertySnapshot> call() throws Exception {
+			List<PropertySnapshot> snapshots = new ArrayList<PropertySnapshot>(plans.size());
+			int offset = cycleBudgetNanos > 0 ? getStartOffset(plans.size()) : 0;
+			for (int i = 0; i < plans.size(); i++) {
+				snapshots.add(sampleMBean(activity, plans.get((offset + i) % plans.size()), null));
+			}
+			return snapshots;
+		}
+	}
+
+	/**
+	 * Last emitted MBean attribute values used by delta mode.
+	 */
+	private static class DeltaState {
+		final Map<String, Object> values = new HashMap<String, Object>();
+		long samples = 0;
+	}
+}
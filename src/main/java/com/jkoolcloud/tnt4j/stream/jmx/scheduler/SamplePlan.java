@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.ObjectName;
+
+import com.jkoolcloud.tnt4j.stream.jmx.format.SimpleTypes;
+
+/**
+ * <p>
+ * This class defines immutable sampling plan of a single MBean used by {@link SampleHandlerImpl}: set of readable and
+ * not excluded MBean attributes and MBean sampling period. Plan is compiled when MBean gets registered and is replaced
+ * by new plan instance when MBean info changes. Attributes excluded by sample listeners are not removed from plan,
+ * listeners are consulted on every sample. Plan retains only compact
+ * {@link MBeanMetadata}, plans selecting all MBean attributes share attribute arrays of interned metadata. Attributes
+ * not selected by MBean filters attribute lists, and attributes which values can never be serialized when "simple
+ * types only" setting is enabled, are left out of plan, so they are never fetched.
+ * </p>
+ *
+ * @see SampleHandlerImpl
+ *
+ * @version $Revision: 1 $
+ */
+class SamplePlan {
+	final ObjectName name;
+	final MBeanMetadata meta;
+	final int ticks;
+	final SampleFilter incFilter;
+	final SampleFilter[] excFilters;
+	final boolean simplesOnly;
+	final MBeanAttributeInfo[] attrs;
+	final String[] attrNames;
+	final int slot;
+
+	/**
+	 * Compile sampling plan of a given MBean.
+	 *
+	 * @param name MBean object name
+	 * @param meta MBean metadata
+	 * @param ticks number of scheduler ticks between MBean samples
+	 */
+	SamplePlan(ObjectName name, MBeanMetadata meta, int ticks) {
+		this(name, meta, ticks, null, null, false);
+	}
+
+	/**
+	 * Compile sampling plan of a given MBean selecting attributes by MBean filters attribute lists.
+	 *
+	 * @param name MBean object name
+	 * @param meta MBean metadata
+	 * @param ticks number of scheduler ticks between MBean samples
+	 * @param incFilter include filter matching MBean, {@code null} - to select all attributes
+	 * @param excFilters exclude filters matching MBean having attribute lists, {@code null} - to exclude no attributes
+	 * @param simplesOnly flag indicating whether to leave out attributes which values can never be serialized
+	 * 
+	 * @see SimpleTypes#isEmittable(MBeanAttributeInfo)
+	 */
+	SamplePlan(ObjectName name, MBeanMetadata meta, int ticks, SampleFilter incFilter, SampleFilter[] excFilters,
+			boolean simplesOnly) {
+		this(name, meta, ticks, incFilter, excFilters, simplesOnly,
+				getSelected(meta, incFilter, excFilters, simplesOnly));
+	}
+
+	private SamplePlan(ObjectName name, MBeanMetadata meta, int ticks, SampleFilter incFilter,
+			SampleFilter[] excFilters, boolean simplesOnly, MBeanAttributeInfo[] attrs) {
+		this.name = name;
+		this.meta = meta;
+		this.ticks = ticks;
+		this.incFilter = incFilter;
+		this.excFilters = excFilters;
+		this.simplesOnly = simplesOnly;
+		this.attrs = attrs;
+		int h = name.hashCode();
+		this.slot = ((h ^ (h >>> 16)) * 0x9E3779B9) >>> 1;
+		if (attrs == meta.attrs) {
+			this.attrNames = meta.attrNames;
+		} else {
+			this.attrNames = new String[attrs.length];
+			for (int i = 0; i < attrs.length; i++) {
+				attrNames[i] = attrs[i].getName();
+			}
+		}
+	}
+
+	private static MBeanAttributeInfo[] getSelected(MBeanMetadata meta, SampleFilter incFilter,
+			SampleFilter[] excFilters, boolean simplesOnly) {
+		MBeanAttributeInfo[] attrs = meta.attrs;
+		List<MBeanAttributeInfo> selected = new ArrayList<MBeanAttributeInfo>(attrs.length);
+		for (int i = 0; i < attrs.length; i++) {
+			String attrName = attrs[i].getName();
+			if ((incFilter == null || incFilter.applyAttribute(attrName)) && !isExcluded(attrName, excFilters)
+					&& (!simplesOnly || meta.emittable[i])) {
+				selected.add(attrs[i]);
+			}
+		}
+		// share metadata attributes array when all attributes are selected
+		return selected.size() == attrs.length ? attrs : selected.toArray(new MBeanAttributeInfo[selected.size()]);
+	}
+
+	private static boolean isExcluded(String attrName, SampleFilter[] excFilters) {
+		if (excFilters != null) {
+			for (SampleFilter excFilter : excFilters) {
+				if (excFilter.applyAttribute(attrName)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determine if MBean shall be sampled on a given scheduler tick.
+	 *
+	 * @param tick scheduler tick number
+	 * @return {@code true} if MBean sampling period elapsed, {@code false} - otherwise
+	 */
+	boolean isDue(long tick) {
+		return tick % ticks == 0;
+	}
+
+	/**
+	 * Determine if MBean shall be sampled on a given scheduler tick and sub-tick. MBeans are spread evenly over
+	 * sub-ticks by object name hash.
+	 *
+	 * @param tick scheduler tick number
+	 * @param subTick sub-tick index within scheduler tick
+	 * @param subTicks number of sub-ticks within scheduler tick
+	 * @return {@code true} if MBean shall be sampled, {@code false} - otherwise
+	 */
+	boolean isDue(long tick, int subTick, int subTicks) {
+		return isDue(tick) && (subTicks <= 1 || slot % subTicks == subTick);
+	}
+
+	/**
+	 * Recompile sampling plan from retained MBean metadata.
+	 *
+	 * @return new sampling plan instance
+	 */
+	SamplePlan rebuild() {
+		return new SamplePlan(name, meta, ticks, incFilter, excFilters, simplesOnly);
+	}
+
+	/**
+	 * Recompile sampling plan from revalidated MBean metadata.
+	 *
+	 * @param newMeta revalidated MBean metadata
+	 * @return new sampling plan instance
+	 */
+	SamplePlan refresh(MBeanMetadata newMeta) {
+		return new SamplePlan(name, newMeta, ticks, incFilter, excFilters, simplesOnly);
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015-2017 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * This class tracks sampling latency of MBean attributes and quarantines slow attributes used by
+ * {@link SampleHandlerImpl}. Attribute taking longer to sample than latency limit is quarantined: it is sampled again
+ * (re-probed) only after exponentially growing number of MBean sampling periods. Attribute sampled within latency
+ * limit on re-probe is released from quarantine.
+ * </p>
+ *
+ * @see SampleHandlerImpl
+ *
+ * @version $Revision: 1 $
+ */
+class SampleQuarantine {
+	/**
+	 * Maximal quarantine backoff exponent: quarantined attribute is re-probed at least every 2^6 MBean sampling
+	 * periods.
+	 */
+	static final int MAX_BACKOFF_SHIFT = 6;
+
+	private final ConcurrentHashMap<ObjectName, ConcurrentHashMap<String, AttrState>> states =
+			new ConcurrentHashMap<ObjectName, ConcurrentHashMap<String, AttrState>>(89);
+	private final AtomicInteger quarantined = new AtomicInteger();
+
+	/**
+	 * Determine if MBean attribute is quarantined and shall not be sampled on a given scheduler tick.
+	 *
+	 * @param name MBean object name
+	 * @param attrName MBean attribute name
+	 * @param tick scheduler tick number
+	 * @return {@code true} if attribute is quarantined, {@code false} - otherwise
+	 */
+	boolean isQuarantined(ObjectName name, String attrName, long tick) {
+		AttrState state = getState(name, attrName);
+		return state != null && state.quarantined && state.releaseTick > tick;
+	}
+
+	/**
+	 * Record MBean attribute sampling latency and quarantine or release attribute.
+	 *
+	 * @param name MBean object name
+	 * @param attrName MBean attribute name
+	 * @param latencyNanos attribute sampling latency in nanoseconds
+	 * @param limitNanos attribute sampling latency limit in nanoseconds
+	 * @param tick scheduler tick number
+	 * @param ticks number of scheduler ticks between MBean samples
+	 */
+	void update(ObjectName name, String attrName, long latencyNanos, long limitNanos, long tick, int ticks) {
+		ConcurrentHashMap<String, AttrState> attrs = states.get(name);
+		if (attrs == null) {
+			attrs = new ConcurrentHashMap<String, AttrState>();
+			ConcurrentHashMap<String, AttrState> prev = states.putIfAbsent(name, attrs);
+			attrs = prev == null ? attrs : prev;
+		}
+		AttrState state = attrs.get(attrName);
+		if (state == null) {
+			state = new AttrState();
+			AttrState prev = attrs.putIfAbsent(attrName, state);
+			state = prev == null ? state : prev;
+		}
+		state.latencyUsec = latencyNanos / 1000;
+		if (latencyNanos > limitNanos) {
+			if (!state.quarantined) {
+				state.quarantined = true;
+				quarantined.incrementAndGet();
+			}
+			state.backoff = Math.min(state.backoff + 1, MAX_BACKOFF_SHIFT);
+			state.releaseTick = tick + ((long) ticks << state.backoff);
+		} else if (state.quarantined) {
+			state.quarantined = false;
+			state.backoff = 0;
+			quarantined.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Obtain last recorded MBean attribute sampling latency.
+	 *
+	 * @param name MBean object name
+	 * @param attrName MBean attribute name
+	 * @return attribute sampling latency in microseconds, {@code -1} if latency is not tracked
+	 */
+	long getLatencyUsec(ObjectName name, String attrName) {
+		AttrState state = getState(name, attrName);
+		return state == null ? -1 : state.latencyUsec;
+	}
+
+	/**
+	 * Obtain number of currently quarantined MBean attributes.
+	 *
+	 * @return number of quarantined attributes
+	 */
+	int getQuarantinedCount() {
+		return quarantined.get();
+	}
+
+	/**
+	 * Drop tracked state of all attributes of a given MBean.
+	 *
+	 * @param name MBean object name
+	 */
+	void evict(ObjectName name) {
+		ConcurrentHashMap<String, AttrState> attrs = states.remove(name);
+		if (attrs != null) {
+			for (AttrState state : attrs.values()) {
+				if (state.quarantined) {
+					quarantined.decrementAndGet();
+				}
+			}
+		}
+	}
+
+	private AttrState getState(ObjectName name, String attrName) {
+		ConcurrentHashMap<String, AttrState> attrs = states.get(name);
+		return attrs == null ? null : attrs.get(attrName);
+	}
+
+	/**
+	 * Latency and quarantine state of single MBean attribute.
+	 */
+	private static class AttrState {
+		volatile long latencyUsec;
+		volatile boolean quarantined;
+		volatile long releaseTick;
+		int backoff;
+	}
+}
@@ -21,6 +21,7 @@ import com.jkoolcloud.tnt4j.TrackingLogger;
 import com.jkoolcloud.tnt4j.stream.jmx.conditions.AttributeAction;
 import com.jkoolcloud.tnt4j.stream.jmx.conditions.AttributeCondition;
 import com.jkoolcloud.tnt4j.stream.jmx.conditions.SampleHandler;
+import com.jkoolcloud.tnt4j.stream.jmx.core.SchedulePolicy;
 
 /**
  * <p>
@@ -45,6 +46,20 @@ public interface Scheduler extends Runnable {
 	 */
 	long getPeriod();
 
+	/**
+	 * Obtain policy used to schedule sampling cycles
+	 * 
+	 * @return sampling cycles schedule policy
+	 */
+	SchedulePolicy getSchedulePolicy();
+
+	/**
+	 * Set policy used to schedule sampling cycles. Policy change takes effect starting next sampling cycle.
+	 * 
+	 * @param policy sampling cycles schedule policy
+	 */
+	void setSchedulePolicy(SchedulePolicy policy);
+
 	/**
 	 * Open current scheduled activity instance.
 	 * 
@@ -15,29 +15,64 @@
  */
 package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
 
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.management.MBeanServerConnection;
 
 import com.jkoolcloud.tnt4j.ActivityScheduler;
+import com.jkoolcloud.tnt4j.core.OpLevel;
 import com.jkoolcloud.tnt4j.stream.jmx.conditions.AttributeAction;
 import com.jkoolcloud.tnt4j.stream.jmx.conditions.AttributeCondition;
 import com.jkoolcloud.tnt4j.stream.jmx.conditions.SampleHandler;
+import com.jkoolcloud.tnt4j.stream.jmx.core.SchedulePolicy;
 import com.jkoolcloud.tnt4j.stream.jmx.core.Sampler;
+import com.jkoolcloud.tnt4j.tracker.TrackingActivity;
 
 /**
  * <p>
- * This class provides scheduled sample/heart-beat for a given JMX {@code MBeanServerConnection}.
+ * This class provides scheduled sample/heart-beat for a given JMX {@code MBeanServerConnection}. Sampling cycles are
+ * run by own scheduler thread according to {@link SchedulePolicy}, which defines how cycles are scheduled when
+ * sampling cycle takes longer than sampling period.
  * </p>
  * 
  * @version $Revision: 1 $
  */
 public class SchedulerImpl extends ActivityScheduler implements Scheduler {
+	/**
+	 * System property name to define sampling cycles {@link SchedulePolicy}.
+	 */
+	public static final String PROP_SCHEDULE_POLICY = "com.jkoolcloud.tnt4j.stream.jmx.schedule.policy";
+	/**
+	 * System property name to enable sampling cycles alignment to wall clock sampling period boundaries.
+	 */
+	public static final String PROP_SCHEDULE_ALIGN = "com.jkoolcloud.tnt4j.stream.jmx.schedule.align";
+	/**
+	 * System property name to define maximal random delay in milliseconds added to aligned sampling cycle start.
+	 */
+	public static final String PROP_SCHEDULE_JITTER = "com.jkoolcloud.tnt4j.stream.jmx.schedule.jitter";
+	/**
+	 * System property name to define number of sub-ticks sampling period is split into. Every sub-tick samples only
+	 * part of MBeans set.
+	 */
+	public static final String PROP_SUB_TICKS = "com.jkoolcloud.tnt4j.stream.jmx.sub.ticks";
+	/**
+	 * System property name to enable producing separate sampling activity for every sub-tick.
+	 */
+	public static final String PROP_SUB_TICK_ACTIVITY = "com.jkoolcloud.tnt4j.stream.jmx.sub.tick.activity";
+
 	protected SampleHandler listener;
 	protected long period;
 	protected TimeUnit timeUnit;
 	protected String incFilter;
 	protected String excFilter;
+	protected volatile SchedulePolicy policy = getDefaultPolicy();
+	protected boolean aligned = Boolean.getBoolean(PROP_SCHEDULE_ALIGN);
+	protected long jitter = Math.max(0, Long.getLong(PROP_SCHEDULE_JITTER, 0));
+	protected int subTicks = Math.max(1, Integer.getInteger(PROP_SUB_TICKS, 1));
+	protected boolean subTickActivities = Boolean.getBoolean(PROP_SUB_TICK_ACTIVITY);
+
+	private ScheduledExecutorService cycleExecutor;
 
 	/**
 	 * Create new instance of {@code SchedulerImpl} with a given name, MBean server, sampling period. Filter is set to
@@ -89,7 +124,8 @@ public class SchedulerImpl extends ActivityScheduler implements Scheduler {
 	 */
 	public SchedulerImpl(String name, MBeanServerConnection mServerConn, String incFilterList, String excFilterList,
 			long period, TimeUnit tunit) {
-		super(name, newSampleHandlerImpl(mServerConn, incFilterList, excFilterList));
+		super(name, newSampleHandlerImpl(mServerConn, incFilterList, excFilterList,
+				TimeUnit.MILLISECONDS.convert(period, tunit)));
 		this.listener = (SampleHandler) this.getListener();
 		this.period = period;
 		this.timeUnit = tunit;
@@ -112,6 +148,23 @@ public class SchedulerImpl extends ActivityScheduler implements Scheduler {
 		return new SampleHandlerImpl(mServerConn, filterList, excfilterList);
 	}
 
+	/**
+	 * Create new instance of {@code SampleHandler}. Override this call to return your instance of the sample handler
+	 * implementation.
+	 *
+	 * @param mServerConn MBean server connection instance
+	 * @param filterList MBean filters semicolon separated
+	 * @param excfilterList MBean exclude filters semicolon separated
+	 * @param period default sampling period in milliseconds
+	 * @return new sample handler implementation instance
+	 * 
+	 * @see SampleHandler
+	 */
+	protected static SampleHandler newSampleHandlerImpl(MBeanServerConnection mServerConn, String filterList,
+			String excfilterList, long period) {
+		return new SampleHandlerImpl(mServerConn, filterList, excfilterList, period);
+	}
+
 	@Override
 	public void register(AttributeCondition cond, AttributeAction action) {
 		listener.register(cond, action);
@@ -138,7 +191,260 @@ public class SchedulerImpl extends ActivityScheduler implements Scheduler {
 	}
 
 	@Override
-	public void run() {
-		this.schedule(this.getName(), period, timeUnit);
+	public SchedulePolicy getSchedulePolicy() {
+		return policy;
+	}
+
+	@Override
+	public void setSchedulePolicy(SchedulePolicy policy) {
+		this.policy = policy == null ? SchedulePolicy.FIXED_RATE : policy;
+	}
+
+	/**
+	 * Enable/disable sampling cycles alignment to wall clock sampling period boundaries, e.g. 30 seconds period cycles
+	 * start at :00 and :30 of every minute. Every sampling activity then carries logical bucket timestamp, reported as
+	 * {@link SampleHandlerImpl#STAT_BUCKET_TIMESTAMP}. Alignment must be set before {@link #run()} is called. Default
+	 * values are defined by system properties {@value #PROP_SCHEDULE_ALIGN} and {@value #PROP_SCHEDULE_JITTER}.
+	 * 
+	 * @param aligned {@code true} to align sampling cycles to wall clock, {@code false} - otherwise
+	 * @param jitterMs maximal random delay in milliseconds added to aligned sampling cycle start, {@code 0} - for no
+	 *            jitter
+	 */
+	public void setAlignment(boolean aligned, long jitterMs) {
+		this.aligned = aligned;
+		this.jitter = Math.max(0, jitterMs);
+	}
+
+	/**
+	 * Set number of sub-ticks sampling period is split into. MBeans set is spread evenly over sub-ticks, so every
+	 * sub-tick samples only part of MBeans and sampling load is spread over sampling period. By default all sub-ticks
+	 * of sampling cycle add their snapshots to single activity, which is completed by last sub-tick. Sub-ticks must
+	 * be set before {@link #run()} is called. Default values are defined by system properties
+	 * {@value #PROP_SUB_TICKS} and {@value #PROP_SUB_TICK_ACTIVITY}.
+	 * 
+	 * @param subTicks number of sub-ticks, {@code 1} - to sample all MBeans at once
+	 * @param subTickActivities {@code true} to produce separate activity for every sub-tick, {@code false} - to
+	 *            produce single activity for sampling cycle
+	 */
+	public void setSubTicks(int subTicks, boolean subTickActivities) {
+		this.subTicks = Math.max(1, subTicks);
+		this.subTickActivities = subTickActivities;
+	}
+
+	private static SchedulePolicy getDefaultPolicy() {
+		try {
+			return SchedulePolicy
+					.valueOf(System.getProperty(PROP_SCHEDULE_POLICY, SchedulePolicy.FIXED_RATE.name()).toUpperCase());
+		} catch (IllegalArgumentException exc) {
+			return SchedulePolicy.FIXED_RATE;
+		}
+	}
+
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (cycleExecutor != null) {
+				cycleExecutor.shutdownNow();
+				cycleExecutor = null;
+			}
+		}
+		super.close();
+		if (listener instanceof SampleHandlerImpl) {
+			((SampleHandlerImpl) listener).shutdown();
+		}
+	}
+
+	@Override
+	public synchronized void run() {
+		if (cycleExecutor != null) {
+			throw new IllegalStateException("sampling already scheduled");
+		}
+		long tickPeriod = SampleFilter.getTickPeriod(incFilter, getPeriod());
+		// include filters may define own sampling periods
+		long periodNanos = tickPeriod == getPeriod() ? timeUnit.toNanos(period)
+				: TimeUnit.MILLISECONDS.toNanos(tickPeriod);
+		cycleExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, getName() + "-scheduler-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		int cSubTicks = listener instanceof SampleHandlerImpl ? subTicks : 1;
+		SampleCycle cycle = new SampleCycle(cycleExecutor, periodNanos / cSubTicks, cSubTicks, aligned,
+				TimeUnit.MILLISECONDS.toNanos(jitter));
+		cycle.start();
+	}
+
+	/**
+	 * Run single sampling cycle: create new activity, notify sample handler about activity start and stop, and report
+	 * tracked activity.
+	 */
+	protected void runCycle() {
+		TrackingActivity activity = getLogger().newActivity(OpLevel.INFO, getName());
+		activity.addActivityListener(listener);
+		activity.start();
+		activity.stop();
+		getLogger().tracked(activity);
+	}
+
+	/**
+	 * Sampling cycle task rescheduling itself according to current {@link SchedulePolicy}. Aligned cycles are scheduled
+	 * using wall clock, others - using {@link System#nanoTime()}. Scheduling lag, overruns and skipped cycles are
+	 * reported to {@link SampleHandlerImpl}. When sampling period is split into sub-ticks, task runs every sub-tick.
+	 */
+	private class SampleCycle implements Runnable {
+		final ScheduledExecutorService executor;
+		final long periodNanos;
+		final int subTicks;
+		final boolean aligned;
+		final long jitterNanos;
+		long nextStart;
+		long nextJitter;
+		long tickIndex;
+		TrackingActivity cycleActivity;
+
+		SampleCycle(ScheduledExecutorService executor, long periodNanos, int subTicks, boolean aligned,
+				long jitterNanos) {
+			this.executor = executor;
+			this.periodNanos = periodNanos;
+			this.subTicks = subTicks;
+			this.aligned = aligned;
+			this.jitterNanos = jitterNanos;
+			long now = now();
+			this.nextStart = aligned ? ((now + periodNanos - 1) / periodNanos) * periodNanos : now;
+			this.tickIndex = aligned ? nextStart / periodNanos : 0;
+		}
+
+		/**
+		 * Obtain current time of cycle schedule clock.
+		 * 
+		 * @return current time in nanoseconds
+		 */
+		long now() {
+			return aligned ? TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) : System.nanoTime();
+		}
+
+		@Override
+		public void run() {
+			long started = now();
+			int subTick = (int) (tickIndex % subTicks);
+			SampleHandlerImpl handler = listener instanceof SampleHandlerImpl ? (SampleHandlerImpl) listener : null;
+			if (handler != null) {
+				handler.scheduleStart(started - nextStart - nextJitter,
+						aligned ? TimeUnit.NANOSECONDS.toMillis(nextStart - subTick * periodNanos) : 0);
+			}
+			try {
+				if (subTicks > 1 && handler != null) {
+					runSubTick(handler, subTick);
+				} else {
+					runCycle();
+				}
+			} finally {
+				long ended = now();
+				long skipped = schedule(ended, ended - started);
+				if (handler != null) {
+					handler.scheduleOverrun(ended - started > periodNanos, skipped);
+				}
+			}
+		}
+
+		/**
+		 * Submit first sampling cycle: immediately when cycles are not aligned, at next period boundary otherwise.
+		 */
+		void start() {
+			submit(now());
+		}
+
+		/**
+		 * Advance schedule past sampling cycle which has just run according to current {@link SchedulePolicy} and
+		 * submit next sampling cycle.
+		 * 
+		 * @param now current time of cycle schedule clock
+		 * @param elapsed last cycle duration in nanoseconds
+		 * @return number of skipped sampling cycles
+		 */
+		long schedule(long now, long elapsed) {
+			long skipped = 0;
+			switch (policy) {
+			case FIXED_DELAY:
+				nextStart = now + periodNanos;
+				if (aligned) {
+					nextStart = ((nextStart + periodNanos - 1) / periodNanos) * periodNanos;
+				}
+				break;
+			case SKIP_ON_OVERRUN:
+				nextStart += periodNanos;
+				if (now - nextStart > 0) {
+					skipped = (now - nextStart) / periodNanos + 1;
+					nextStart += skipped * periodNanos;
+				}
+				break;
+			default:
+				nextStart += periodNanos;
+				break;
+			}
+			tickIndex = aligned ? nextStart / periodNanos : tickIndex + 1 + skipped;
+			submit(now);
+			return skipped;
+		}
+
+		/**
+		 * Submit sampling cycle to be run at scheduled start time plus random jitter.
+		 * 
+		 * @param now current time of cycle schedule clock
+		 */
+		private void submit(long now) {
+			nextJitter = jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos + 1) : 0;
+			try {
+				executor.schedule(this, Math.max(0, nextStart + nextJitter - now), TimeUnit.NANOSECONDS);
+			} catch (RejectedExecutionException exc) {
+				// scheduler is closed
+			}
+		}
+
+		/**
+		 * Run single sub-tick of sampling cycle. First sub-tick starts sampling cycle activity, last one stops it.
+		 * 
+		 * @param handler sample handler instance
+		 * @param subTick sub-tick index within sampling cycle
+		 */
+		void runSubTick(SampleHandlerImpl handler, int subTick) {
+			if (subTickActivities) {
+				handler.subTick(subTick, subTicks);
+				runCycle();
+				return;
+			}
+			if (subTick == 0 && cycleActivity != null) {
+				// last sub-tick of previous cycle was skipped
+				handler.subTick(-1, subTicks);
+				stopCycle();
+			}
+			handler.subTick(subTick, subTicks);
+			if (subTick == 0) {
+				cycleActivity = getLogger().newActivity(OpLevel.INFO, getName());
+				cycleActivity.addActivityListener(listener);
+				cycleActivity.start();
+			}
+			if (cycleActivity == null) {
+				// wait for next sampling cycle start
+				return;
+			}
+			if (subTick == subTicks - 1) {
+				stopCycle();
+			} else {
+				handler.sampleSubTick(cycleActivity);
+			}
+		}
+
+		private void stopCycle() {
+			TrackingActivity activity = cycleActivity;
+			cycleActivity = null;
+			activity.stop();
+			getLogger().tracked(activity);
+		}
 	}
 }